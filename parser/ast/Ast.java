@@ -0,0 +1,152 @@
+package parser.ast;
+
+import scanner.TokenBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Syntax tree of a mini-C program as a node arena: node n is a row across
+ * the int columns kind, token, firstChild and nextSibling (-1 for none),
+ * plus lastChild so children append in O(1) while parsing. That is 20 bytes
+ * a node, with no per-node objects; tokens are indexes into the TokenBuffer
+ * the tree was parsed from.
+ */
+public final class Ast {
+    private static final NodeKind[] KINDS = NodeKind.values();
+
+    private final TokenBuffer tokens;
+    private int size;
+    private int[] kinds;
+    private int[] tokenIndexes;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] lastChildren;
+    private int root = -1;
+
+    public Ast(TokenBuffer tokens, int capacity) {
+        this.tokens = tokens;
+        int initial = Math.max(capacity, 16);
+        kinds = new int[initial];
+        tokenIndexes = new int[initial];
+        firstChildren = new int[initial];
+        nextSiblings = new int[initial];
+        lastChildren = new int[initial];
+    }
+
+    public int add(NodeKind kind, int token) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            tokenIndexes = Arrays.copyOf(tokenIndexes, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+        }
+        kinds[size] = kind.ordinal();
+        tokenIndexes[size] = token;
+        firstChildren[size] = -1;
+        nextSiblings[size] = -1;
+        lastChildren[size] = -1;
+        return size++;
+    }
+
+    // Appends child, which must not have a parent yet, as the last child of parent
+    public void addChild(int parent, int child) {
+        if (firstChildren[parent] < 0) {
+            firstChildren[parent] = child;
+        } else {
+            nextSiblings[lastChildren[parent]] = child;
+        }
+        lastChildren[parent] = child;
+    }
+
+    public void setRoot(int node) {
+        root = node;
+    }
+
+    public int root() {
+        return root;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenBuffer tokens() {
+        return tokens;
+    }
+
+    public int kind(int node) {
+        return kinds[node];
+    }
+
+    public NodeKind nodeKind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    public int token(int node) {
+        return tokenIndexes[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int childCount(int node) {
+        int count = 0;
+        for (int c = firstChildren[node]; c >= 0; c = nextSiblings[c]) count++;
+        return count;
+    }
+
+    // i-th child, or -1
+    public int child(int node, int i) {
+        int c = firstChildren[node];
+        while (c >= 0 && i-- > 0) c = nextSiblings[c];
+        return c;
+    }
+
+    // Bytes held by the node columns, for comparing against object trees
+    public long memoryBytes() {
+        return 5L * Integer.BYTES * kinds.length;
+    }
+
+    /**
+     * One node per line, indented by depth, e.g. "BINARY +". Walks with an
+     * explicit stack so deep trees print too.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (root < 0) return sb.toString();
+        int[] stack = new int[16];
+        int[] depth = new int[16];
+        int top = 0;
+        stack[top] = root;
+        depth[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int d = depth[top];
+            for (int i = 0; i < d; i++) sb.append("  ");
+            sb.append(nodeKind(node));
+            if (tokenIndexes[node] >= 0) sb.append(' ').append(tokens.value(tokenIndexes[node]));
+            sb.append('\n');
+            int children = childCount(node);
+            if (top + children > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children));
+                depth = Arrays.copyOf(depth, stack.length);
+            }
+            // Pushed in reverse so the first child prints first
+            top += children;
+            int at = top - 1;
+            for (int c = firstChildren[node]; c >= 0; c = nextSiblings[c]) {
+                stack[at] = c;
+                depth[at--] = d + 1;
+            }
+        }
+        return sb.toString();
+    }
+}
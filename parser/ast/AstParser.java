@@ -0,0 +1,190 @@
+package parser.ast;
+
+import parser.expr.OperatorTable;
+import scanner.ScannerBenchmark;
+import scanner.TokenBuffer;
+import scanner.TokenType;
+
+/**
+ * Builds an Ast for the language BacktrackParser accepts. The grammar is
+ * LL(1) once declarations are told apart by their type keyword, so this
+ * parser never backtracks; binary operators go through precedence climbing
+ * over OperatorTable.MINI_C.
+ */
+public class AstParser {
+    private static final OperatorTable<TokenType> OPERATORS = OperatorTable.MINI_C;
+    private static final int EOF = TokenType.EOF.ordinal();
+
+    private final TokenBuffer tokens;
+    private final Ast ast;
+    private int pos = 0;
+    // Limit the last expression call stopped at, so its caller stops there too
+    private int expressionLimit;
+
+    public AstParser(TokenBuffer tokens) {
+        this.tokens = tokens;
+        // Every node but the root owns a distinct token, so the arena never grows
+        this.ast = new Ast(tokens, tokens.size() + 1);
+    }
+
+    public Ast parse() {
+        int program = ast.add(NodeKind.PROGRAM, -1);
+        while (type() != EOF) {
+            ast.addChild(program, statementOrDeclaration());
+        }
+        ast.setRoot(program);
+        return ast;
+    }
+
+    private int statementOrDeclaration() {
+        switch (tokens.tokenType(pos)) {
+            case INT:
+            case FLOAT:
+            case CHAR:
+                return declaration();
+            default:
+                return statement();
+        }
+    }
+
+    // type IDENTIFIER [= expression] ;
+    private int declaration() {
+        pos++; // type
+        int node = ast.add(NodeKind.DECLARATION, expect(TokenType.IDENTIFIER));
+        if (type() == TokenType.EQ.ordinal()) {
+            pos++;
+            ast.addChild(node, expression(1));
+        }
+        expect(TokenType.SEMICOLON);
+        return node;
+    }
+
+    private int statement() {
+        switch (tokens.tokenType(pos)) {
+            case IF: {
+                int node = ast.add(NodeKind.IF, pos++);
+                condition(node);
+                ast.addChild(node, statement());
+                if (type() == TokenType.ELSE.ordinal()) {
+                    pos++;
+                    ast.addChild(node, statement());
+                }
+                return node;
+            }
+            case WHILE: {
+                int node = ast.add(NodeKind.WHILE, pos++);
+                condition(node);
+                ast.addChild(node, statement());
+                return node;
+            }
+            case LBRACE: {
+                int node = ast.add(NodeKind.BLOCK, pos++);
+                while (type() != TokenType.RBRACE.ordinal()) {
+                    if (type() == EOF) throw error("RBRACE");
+                    ast.addChild(node, statementOrDeclaration());
+                }
+                pos++;
+                return node;
+            }
+            case IDENTIFIER: {
+                int node = ast.add(NodeKind.ASSIGNMENT, pos++);
+                expect(TokenType.EQ);
+                ast.addChild(node, expression(1));
+                expect(TokenType.SEMICOLON);
+                return node;
+            }
+            default:
+                throw error("a statement");
+        }
+    }
+
+    private void condition(int node) {
+        expect(TokenType.LPAREN);
+        ast.addChild(node, expression(1));
+        expect(TokenType.RPAREN);
+    }
+
+    // Precedence climbing; a < b < c and a && b < c < d both stop at the
+    // second <, as in BacktrackParser
+    private int expression(int minimum) {
+        int left = operand();
+        int limit = Integer.MAX_VALUE;
+        while (true) {
+            int type = type();
+            int level = OPERATORS.precedence(type);
+            if (level < minimum || level == 0 || level >= limit) {
+                expressionLimit = limit;
+                return left;
+            }
+            int node = ast.add(NodeKind.BINARY, pos++);
+            int right = expression(OPERATORS.rightMinimum(type));
+            ast.addChild(node, left);
+            ast.addChild(node, right);
+            left = node;
+            if (OPERATORS.isNonAssociative(type)) limit = level;
+            limit = Math.min(limit, expressionLimit);
+        }
+    }
+
+    private int operand() {
+        switch (tokens.tokenType(pos)) {
+            case LPAREN: {
+                pos++;
+                int node = expression(1);
+                expect(TokenType.RPAREN);
+                return node;
+            }
+            case IDENTIFIER:
+                return ast.add(NodeKind.NAME, pos++);
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+            case CHAR_LITERAL:
+                return ast.add(NodeKind.LITERAL, pos++);
+            default:
+                throw error("an expression");
+        }
+    }
+
+    private int type() {
+        return tokens.type(pos);
+    }
+
+    private int expect(TokenType type) {
+        if (type() != type.ordinal()) throw error(type.name());
+        return pos++;
+    }
+
+    private RuntimeException error(String expected) {
+        return new RuntimeException("Syntax Error: Expected " + expected + " but found "
+                + tokens.token(pos) + tokens.where(pos));
+    }
+
+    public static void main(String[] args) {
+        String program = ""
+                + "int count = 0;\n"
+                + "float price = 10.5;\n"
+                + "if (count < 5 && price > 10.0) {\n"
+                + "   count = count + 1;\n"
+                + "} else price = price * 1.5 - 1.0;\n"
+                + "while (count < 10) count = count + 1;\n";
+        System.out.print(new AstParser(TokenBuffer.lex(program)).parse());
+
+        // Comparisons do not chain, not even in the right operand of && or ||
+        try {
+            new AstParser(TokenBuffer.lex("x = a && b < c < d;")).parse();
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+        }
+
+        TokenBuffer tokens = TokenBuffer.lex(ScannerBenchmark.generateSource(8 << 20));
+        long best = Long.MAX_VALUE;
+        Ast ast = null;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            ast = new AstParser(tokens).parse();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%n%d tokens -> %d nodes in %.1f ms, %.1f bytes per node%n",
+                tokens.size(), ast.size(), best / 1e6, (double) ast.memoryBytes() / ast.size());
+    }
+}
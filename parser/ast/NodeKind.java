@@ -0,0 +1,16 @@
+package parser.ast;
+
+/**
+ * Kinds of Ast nodes, and what their token and children are.
+ */
+public enum NodeKind {
+    PROGRAM,        // no token; declarations and statements
+    DECLARATION,    // the declared IDENTIFIER, its type keyword is the token before; optional initializer
+    ASSIGNMENT,     // the assigned IDENTIFIER; value
+    IF,             // IF; condition, then, optional else
+    WHILE,          // WHILE; condition, body
+    BLOCK,          // LBRACE; declarations and statements
+    BINARY,         // the operator; left, right
+    NAME,           // an IDENTIFIER read in an expression
+    LITERAL         // INTEGER_LITERAL, FLOAT_LITERAL or CHAR_LITERAL
+}
@@ -0,0 +1,49 @@
+package parser.bruteforce;
+
+import scanner.TokenBuffer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+public class BacktrackBenchmark {
+
+    // depth levels of alternating if/while blocks, each level holding a few statements
+    static String nestedProgram(int depth, int statementsPerLevel) {
+        StringBuilder sb = new StringBuilder("int a = 0;\n");
+        for (int d = 0; d < depth; d++) {
+            sb.append(d % 2 == 0 ? "if (a < " + d + " && a > 0) {\n" : "while (a < " + d + ") {\n");
+            for (int s = 0; s < statementsPerLevel; s++) {
+                sb.append("a = a * (a + ").append(s).append(") - 1;\n");
+            }
+        }
+        for (int d = 0; d < depth; d++) {
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    private static double time(TokenBuffer tokens, boolean packrat, int rounds) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            new BacktrackParser(tokens, packrat).parse();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        PrintStream console = System.out;
+        // parse() reports success on stdout; keep that out of the timings
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        console.printf("%6s %8s %12s %12s%n", "depth", "tokens", "plain ms", "packrat ms");
+        for (int depth = 25; depth <= 800; depth *= 2) {
+            TokenBuffer tokens = TokenBuffer.lex(nestedProgram(depth, 4));
+            console.printf("%6d %8d %12.3f %12.3f%n", depth, tokens.size(),
+                    time(tokens, false, rounds), time(tokens, true, rounds));
+        }
+        System.setOut(console);
+    }
+}
@@ -1,194 +1,263 @@
 package parser.bruteforce;
 
+import parser.expr.OperatorTable;
 import scanner.Token;
+import scanner.TokenBuffer;
 import scanner.TokenType;
 import java.util.ArrayList;
 import java.util.List;
 
 public class BacktrackParser {
 
-    private final List<Token> tokens;
+    // Memoized rules; each owns one row of the packrat table
+    private static final int STATEMENT_OR_DECL = 0;
+    private static final int DECLARATION = 1;
+    private static final int STATEMENT = 2;
+    private static final int EXPRESSION = 3;
+    private static final int RULES = 4;
+
+    private static final int UNKNOWN = 0;
+    private static final int FAILED = -1;
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private static final OperatorTable<TokenType> OPERATORS = OperatorTable.MINI_C;
+    // [from][to] -> operators with from <= precedence < to, reported as expected when a loop stops
+    private static final long[][] OPERATORS_BETWEEN;
+
+    static {
+        int levels = OPERATORS.maxPrecedence() + 2;
+        OPERATORS_BETWEEN = new long[levels][levels];
+        for (int from = 1; from < levels; from++) {
+            for (int to = from; to < levels; to++) OPERATORS_BETWEEN[from][to] = OPERATORS.mask(from, to);
+        }
+    }
+
+    private final TokenBuffer tokens;
     private int pos = 0;
+    // (rule, position) -> 0 unknown, -1 failed, else end position + 1; null when packrat is off
+    private final int[] memo;
+
+    // Rules report failure by returning false. For the error message we keep the
+    // furthest position any alternative reached and the token types it would have accepted there.
+    private int furthest = -1;
+    private long expected;
+
+    // Limit the last parseBinary call stopped at, so its caller stops there too
+    private int binaryLimit;
 
     public BacktrackParser(List<Token> tokens) {
+        this(TokenBuffer.of(tokens));
+    }
+
+    // Parses straight off the token columns; Token objects are only built for error messages
+    public BacktrackParser(TokenBuffer tokens) {
+        this(tokens, false);
+    }
+
+    /**
+     * With packrat on, every memoized rule runs at most once per token
+     * position; a repeated attempt replays the recorded end position or failure.
+     */
+    public BacktrackParser(TokenBuffer tokens, boolean packrat) {
         this.tokens = tokens;
+        this.memo = packrat ? new int[RULES * (tokens.size() + 1)] : null;
     }
 
     public void parse() {
         while (!peek(TokenType.EOF)) {
             if (!parseStatementOrDecl()) {
-                throw new RuntimeException("Syntax Error: Unable to parse at token " + peek());
+                throw new RuntimeException(syntaxError());
             }
         }
         System.out.println("\n[SUCCESS]: Input parsed successfully!");
     }
 
-    private boolean tryParse(Runnable parserRule) {
-        int snapshot = pos;
-        try {
-            parserRule.run();
-            return true;
-        } catch (RuntimeException e) {
-            // Backtrack: Restore position if the rule failed
-            pos = snapshot;
-            return false;
+    private String syntaxError() {
+        pos = furthest;
+        List<TokenType> types = new ArrayList<>();
+        for (TokenType type : TYPES) {
+            if ((expected & (1L << type.ordinal())) != 0) types.add(type);
         }
+        return "Syntax Error: Expected " + (types.size() == 1 ? types.get(0) : "one of " + types)
+                + " but found " + peek() + tokens.where(pos);
+    }
+
+    private int memoKey(int rule) {
+        return memo == null ? -1 : rule * (tokens.size() + 1) + pos;
+    }
+
+    private boolean replay(int key) {
+        if (memo[key] == FAILED) return false;
+        pos = memo[key] - 1;
+        return true;
+    }
+
+    private boolean remember(int key, boolean parsed) {
+        if (key >= 0) memo[key] = parsed ? pos + 1 : FAILED;
+        return parsed;
     }
 
     private boolean parseStatementOrDecl() {
+        int key = memoKey(STATEMENT_OR_DECL);
+        if (key >= 0 && memo[key] != UNKNOWN) return replay(key);
+        int snapshot = pos;
         // Try Declaration first
-        if (tryParse(this::parseDeclaration)) return true;
-        // If not decl, try Statement
-        if (tryParse(this::parseStatement)) return true;
-        return false;
+        if (parseDeclaration()) return remember(key, true);
+        // Backtrack: if not decl, try Statement
+        pos = snapshot;
+        if (parseStatement()) return remember(key, true);
+        pos = snapshot;
+        return remember(key, false);
     }
 
-    private void parseDeclaration() {
-        parseType();
-        match(TokenType.IDENTIFIER);
+    private boolean parseDeclaration() {
+        int key = memoKey(DECLARATION);
+        if (key >= 0 && memo[key] != UNKNOWN) return replay(key);
+        return remember(key, declaration());
+    }
+
+    private boolean declaration() {
+        if (!parseType() || !match(TokenType.IDENTIFIER)) return false;
 
         if (peek(TokenType.EQ)) {
-            consume(TokenType.EQ);
-            parseExpression();
+            consume();
+            if (!parseExpression()) return false;
         }
-        match(TokenType.SEMICOLON);
+        return match(TokenType.SEMICOLON);
     }
 
-    private void parseStatement() {
+    private boolean parseStatement() {
+        int key = memoKey(STATEMENT);
+        if (key >= 0 && memo[key] != UNKNOWN) return replay(key);
+        return remember(key, statement());
+    }
+
+    private boolean statement() {
         if (peek(TokenType.IF)) {
-            parseIfStmt();
+            return parseIfStmt();
         } else if (peek(TokenType.WHILE)) {
-            parseWhileStmt();
+            return parseWhileStmt();
         } else if (peek(TokenType.LBRACE)) {
-            parseBlock();
+            return parseBlock();
         } else {
-            parseAssignment();
-            match(TokenType.SEMICOLON);
+            return parseAssignment() && match(TokenType.SEMICOLON);
         }
     }
-    private void parseIfStmt() {
-        consume(TokenType.IF);
-        match(TokenType.LPAREN);
-        parseExpression();
-        match(TokenType.RPAREN);
-        parseStatement();
+    private boolean parseIfStmt() {
+        consume(); // if
+        if (!match(TokenType.LPAREN) || !parseExpression() || !match(TokenType.RPAREN)) return false;
+        if (!parseStatement()) return false;
 
         // Optional Else part
         if (peek(TokenType.ELSE)) {
-            consume(TokenType.ELSE);
-            parseStatement();
+            consume();
+            return parseStatement();
         }
+        return true;
     }
-    private void parseWhileStmt() {
-        consume(TokenType.WHILE);
-        match(TokenType.LPAREN);
-        parseExpression();
-        match(TokenType.RPAREN);
-        parseStatement();
+    private boolean parseWhileStmt() {
+        consume(); // while
+        return match(TokenType.LPAREN) && parseExpression() && match(TokenType.RPAREN) && parseStatement();
     }
 
-    private void parseBlock() {
-        match(TokenType.LBRACE);
+    private boolean parseBlock() {
+        if (!match(TokenType.LBRACE)) return false;
         while (!peek(TokenType.RBRACE) && !peek(TokenType.EOF)) {
-            if (!parseStatementOrDecl()) {
-                throw new RuntimeException("Error inside block");
-            }
+            if (!parseStatementOrDecl()) return false;
         }
-        match(TokenType.RBRACE);
+        return match(TokenType.RBRACE);
     }
 
-    private void parseAssignment() {
-        match(TokenType.IDENTIFIER);
-        match(TokenType.EQ);
-        parseExpression();
+    private boolean parseAssignment() {
+        return match(TokenType.IDENTIFIER) && match(TokenType.EQ) && parseExpression();
     }
 
 
-    private void parseExpression() {
-        parseLogicalExpr();
-    }
-
-    private void parseLogicalExpr() {
-        parseRelationalExpr();
-        while (peek(TokenType.AND) || peek(TokenType.OR)) {
-            consume(); // consume operator
-            parseRelationalExpr();
-        }
+    private boolean parseExpression() {
+        int key = memoKey(EXPRESSION);
+        if (key >= 0 && memo[key] != UNKNOWN) return replay(key);
+        return remember(key, parseBinary(1));
     }
 
-    private void parseRelationalExpr() {
-        parseArithmeticExpr();
-        if (peek(TokenType.LT) || peek(TokenType.GT) || peek(TokenType.EQ)) {
+    /**
+     * Precedence climbing over OperatorTable.MINI_C: one loop for every
+     * binary operator level, so a lone operand costs one call here and one
+     * in parseFactor.
+     */
+    private boolean parseBinary(int minimum) {
+        if (!parseFactor()) return false;
+        int limit = OPERATORS_BETWEEN.length - 1;
+        while (true) {
+            int type = pos < tokens.size() ? tokens.type(pos) : TokenType.EOF.ordinal();
+            int level = OPERATORS.precedence(type);
+            if (level < minimum || level >= limit) {
+                expect(OPERATORS_BETWEEN[minimum][limit]);
+                binaryLimit = limit;
+                return true;
+            }
             consume(); // consume operator
-            parseArithmeticExpr();
+            if (!parseBinary(OPERATORS.rightMinimum(type))) return false;
+            // a < b < c does not chain; only looser operators may follow,
+            // also when the right operand ended in one, as in a && b < c < d
+            if (OPERATORS.isNonAssociative(type)) limit = level;
+            limit = Math.min(limit, binaryLimit);
         }
     }
 
-    private void parseArithmeticExpr() {
-        parseTerm();
-        while (peek(TokenType.PLUS) || peek(TokenType.MINUS)) {
+    private boolean parseFactor() {
+        if (peek(TokenType.LPAREN)) {
             consume();
-            parseTerm();
-        }
-    }
-
-    private void parseTerm() {
-        parseFactor();
-        while (peek(TokenType.MULTIPLY)) {
+            return parseExpression() && match(TokenType.RPAREN);
+        } else if (peek(TokenType.IDENTIFIER) || peek(TokenType.INTEGER_LITERAL)
+                || peek(TokenType.FLOAT_LITERAL) || peek(TokenType.CHAR_LITERAL)) {
             consume();
-            parseFactor();
-        }
-    }
-
-    private void parseFactor() {
-        if (peek(TokenType.LPAREN)) {
-            consume(TokenType.LPAREN);
-            parseExpression();
-            match(TokenType.RPAREN);
-        } else if (peek(TokenType.IDENTIFIER)) {
-            consume(TokenType.IDENTIFIER);
-        } else if (peek(TokenType.INTEGER_LITERAL)) {
-            consume(TokenType.INTEGER_LITERAL);
-        } else if (peek(TokenType.FLOAT_LITERAL)) {
-            consume(TokenType.FLOAT_LITERAL);
-        } else if (peek(TokenType.CHAR_LITERAL)) {
-            consume(TokenType.CHAR_LITERAL);
-        } else {
-            throw new RuntimeException("Syntax Error: Unexpected token " + peek());
+            return true;
         }
+        return false;
     }
 
 
-    private void parseType() {
+    private boolean parseType() {
         if (peek(TokenType.INT) || peek(TokenType.FLOAT) || peek(TokenType.CHAR)) {
             consume();
-        } else {
-            throw new RuntimeException("Expected Type");
+            return true;
         }
+        return false;
     }
 
-    private void match(TokenType type) {
+    private boolean match(TokenType type) {
         if (peek(type)) {
             consume();
-        } else {
-            throw new RuntimeException("Expected " + type + " but found " + peek());
+            return true;
         }
+        return false;
     }
 
     private void consume() {
         if (pos < tokens.size()) pos++;
     }
 
-    private void consume(TokenType type) {
-        match(type);
-    }
-
     private Token peek() {
-        if (pos < tokens.size()) return tokens.get(pos);
+        if (pos < tokens.size()) return tokens.token(pos);
         return new Token(TokenType.EOF, "");
     }
 
+    // Every lookahead that fails is a token type the parser would have accepted here
     private boolean peek(TokenType type) {
-        return peek().type == type;
+        int actual = pos < tokens.size() ? tokens.type(pos) : TokenType.EOF.ordinal();
+        if (actual == type.ordinal()) return true;
+        expect(1L << type.ordinal());
+        return false;
+    }
+
+    private void expect(long types) {
+        if (pos >= furthest) {
+            if (pos > furthest) {
+                furthest = pos;
+                expected = 0;
+            }
+            expected |= types;
+        }
     }
 }
\ No newline at end of file
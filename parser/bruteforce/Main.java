@@ -3,6 +3,7 @@ package parser.bruteforce;
 import java.util.Arrays;
 import java.util.List;
 import scanner.Token;
+import scanner.TokenBuffer;
 import scanner.TokenType;
 
 public class Main {
@@ -40,5 +41,12 @@ public class Main {
         } catch (RuntimeException e) {
             System.err.println(e.getMessage());
         }
+
+        // Comparisons do not chain, not even in the right operand of && or ||
+        try {
+            new BacktrackParser(TokenBuffer.lex("x = a && b < c < d;")).parse();
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+        }
     }
 }
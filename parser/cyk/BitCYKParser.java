@@ -0,0 +1,197 @@
+package parser.cyk;
+
+import scanner.TokenBuffer;
+import scanner.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * CYK recognizer over a compiled CnfGrammar. Each chart cell is a bitmask of
+ * nonterminals, kept as a triangle of real spans laid out one diagonal (span
+ * length) after another: cell (i, l) is at (diagonal[l] + i) * words.
+ *
+ * Next to the cells, every nonterminal A has two bit rows per position p:
+ * byStart(A, p) marks the ends e with A in span [p, e), byEnd(A, p) the starts
+ * s with A in span [s, p). Whether B C derives span [i, e) is then one AND of
+ * byStart(B, i) and byEnd(C, e) over the split points, a word at a time, so
+ * the n^3 loop is pure bitwise work and allocates nothing.
+ */
+public class BitCYKParser {
+    final CnfGrammar grammar;
+    final int words;
+    long[] chart = new long[0];
+    int[] diagonal = new int[0];
+    long[] byStart = new long[0];
+    long[] byEnd = new long[0];
+    int rowWords;
+    int length = -1;
+    private boolean printTable;
+    private int[] tokenTypes = new int[0];
+    private int[] input;
+
+    public BitCYKParser(CnfGrammar grammar) {
+        this.grammar = grammar.compile();
+        this.words = this.grammar.words;
+    }
+
+    public void setPrintTable(boolean printTable) {
+        this.printTable = printTable;
+    }
+
+    public boolean parse(String input) {
+        int[] terminals = new int[input.length()];
+        for (int i = 0; i < terminals.length; i++) terminals[i] = input.charAt(i);
+        boolean accepted = recognize(terminals, terminals.length);
+        if (printTable) printTable(input);
+        return accepted;
+    }
+
+    // Token types as terminal codes (see Grammar.tokenCode), up to the EOF token
+    public boolean parse(TokenBuffer tokens) {
+        int n = tokens.size();
+        if (n > 0 && tokens.tokenType(n - 1) == TokenType.EOF) n--;
+        if (tokenTypes.length < n) tokenTypes = new int[n];
+        for (int i = 0; i < n; i++) tokenTypes[i] = tokens.type(i);
+        return recognize(tokenTypes, n);
+    }
+
+    // Terminal codes of the input, as used in the grammar's terminal rules
+    public boolean recognize(int[] terminals, int n) {
+        if (n == 0) {
+            length = 0;
+            return grammar.acceptsEmpty();
+        }
+        layout(n);
+        fillTerminals(terminals, n);
+        for (int l = 2; l <= n; l++) {
+            for (int i = 0; i <= n - l; i++) {
+                combine(i, l);
+            }
+        }
+        return accepted();
+    }
+
+    // Parse forest of the last recognize() or parse(), built from the chart on demand
+    public ParseForest forest() {
+        if (length < 0) throw new IllegalStateException("Nothing parsed yet");
+        if (length == 0) return new ParseForest(this, new int[0], grammar.acceptsEmpty());
+        return new ParseForest(this, input, accepted());
+    }
+
+    boolean accepted() {
+        return CnfGrammar.get(chart, cell(0, length), grammar.start());
+    }
+
+    // Sizes and clears the chart for an input of n symbols, reusing earlier storage
+    void layout(int n) {
+        if (diagonal.length < n + 2) diagonal = new int[n + 2];
+        diagonal[1] = 0;
+        for (int l = 1; l <= n; l++) {
+            diagonal[l + 1] = diagonal[l] + (n - l + 1);
+        }
+        chart = cleared(chart, diagonal[n + 1] * words);
+        rowWords = (n + 64) >>> 6;
+        int rows = grammar.size() * (n + 1) * rowWords;
+        byStart = cleared(byStart, rows);
+        byEnd = cleared(byEnd, rows);
+        length = n;
+    }
+
+    private static long[] cleared(long[] array, int size) {
+        if (array.length < size) return new long[size];
+        Arrays.fill(array, 0, size, 0L);
+        return array;
+    }
+
+    void fillTerminals(int[] terminals, int n) {
+        input = terminals;
+        long[] masks = grammar.terminalMasks;
+        for (int i = 0; i < n; i++) {
+            int t = terminals[i];
+            if (t >= 0 && t < grammar.terminalCount) {
+                System.arraycopy(masks, t * words, chart, cell(i, 1), words);
+                markRows(i, i + 1, cell(i, 1));
+            }
+        }
+    }
+
+    final int cell(int i, int l) {
+        return (diagonal[l] + i) * words;
+    }
+
+    final int row(int nonTerminal, int position) {
+        return (nonTerminal * (length + 1) + position) * rowWords;
+    }
+
+    // Fills cell (i, l) from every split of [i, i + l) into B C for each right-hand side
+    void combine(int i, int l) {
+        final long[] chart = this.chart;
+        final CnfGrammar g = grammar;
+        final int e = i + l;
+        final int out = cell(i, l);
+        final int from = (i + 1) >>> 6;
+        final int to = (e - 1) >>> 6;
+        for (int p = 0; p < g.pairLeft.length; p++) {
+            int mask = p * words;
+            if (covered(g.pairMasks, mask, out)) continue;
+            // Rows only hold spans shorter than l so far, so no masking of the word range is needed
+            int left = row(g.pairLeft[p], i);
+            int right = row(g.pairRight[p], e);
+            for (int w = from; w <= to; w++) {
+                if ((byStart[left + w] & byEnd[right + w]) != 0) {
+                    for (int k = 0; k < words; k++) chart[out + k] |= g.pairMasks[mask + k];
+                    break;
+                }
+            }
+        }
+        markRows(i, e, out);
+    }
+
+    private boolean covered(long[] masks, int mask, int cell) {
+        for (int w = 0; w < words; w++) {
+            if ((masks[mask + w] & ~chart[cell + w]) != 0) return false;
+        }
+        return true;
+    }
+
+    // Records every nonterminal of span [i, e) in the position rows
+    private void markRows(int i, int e, int cell) {
+        for (int w = 0; w < words; w++) {
+            long bits = chart[cell + w];
+            while (bits != 0) {
+                int a = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                byStart[row(a, i) + (e >>> 6)] |= 1L << e;
+                byEnd[row(a, e) + (i >>> 6)] |= 1L << i;
+            }
+        }
+    }
+
+    public void printTable(String input) {
+        System.out.println("CYK Parse Table for: \"" + input + "\"");
+        System.out.println("Format: table[row][col] where row=start index, col=length");
+        System.out.println("--------------------------------------------------");
+        for (int i = 0; i < length; i++) {
+            for (int l = 1; i + l <= length; l++) {
+                int cell = cell(i, l);
+                boolean empty = true;
+                for (int w = 0; w < words; w++) empty &= chart[cell + w] == 0;
+                if (!empty) {
+                    System.out.printf("table[%d][%d] (%s): %s%n", i, l, input.substring(i, i + l),
+                            grammar.describe(chart, cell));
+                }
+            }
+        }
+        System.out.println("--------------------------------------------------");
+    }
+
+    public static void main(String[] args) {
+        BitCYKParser parser = new BitCYKParser(new CYKParser().compile());
+        parser.setPrintTable(args.length > 0);
+
+        for (String input : new String[]{"baaba", "bbbbb"}) {
+            System.out.println("Parsing: " + input);
+            System.out.println("Result: " + (parser.parse(input) ? "ACCEPTED" : "REJECTED"));
+        }
+    }
+}
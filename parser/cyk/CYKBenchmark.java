@@ -0,0 +1,66 @@
+package parser.cyk;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+public class CYKBenchmark {
+
+    static int[] randomInput(int n, long seed) {
+        Random random = new Random(seed);
+        int[] input = new int[n];
+        for (int i = 0; i < n; i++) input[i] = random.nextBoolean() ? 'a' : 'b';
+        return input;
+    }
+
+    static double time(BitCYKParser parser, int[] input, int rounds) {
+        return time(in -> parser.recognize(in, in.length), input, rounds);
+    }
+
+    static double time(Predicate<int[]> recognizer, int[] input, int rounds) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            recognizer.test(input);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+        CnfGrammar grammar = new CYKParser().compile();
+
+        System.out.printf("Diagonal-parallel CYK, %d cores, best of %d rounds (ms)%n", cores, rounds);
+        System.out.printf("%6s %10s", "n", "sequential");
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            System.out.printf(" %9s", threads + " thr");
+            if (threads == cores) break;
+        }
+        System.out.println();
+
+        for (int n = 500; n <= 4000; n *= 2) {
+            int[] input = randomInput(n, n);
+            System.out.printf("%6d %10.1f", n, time(new BitCYKParser(grammar), input, rounds));
+            for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                System.out.printf(" %9.1f", time(new ParallelCYKParser(grammar, pool), input, rounds));
+                pool.shutdown();
+                if (threads == cores) break;
+            }
+            System.out.println();
+        }
+
+        System.out.printf("%nBit-row CYK vs Valiant matrix recognizer, best of %d rounds (ms)%n", rounds);
+        System.out.printf("%6s %10s %10s %12s%n", "n", "bit-rows", "valiant", "valiant MB");
+        for (int n = 500; n <= 8000; n *= 2) {
+            int[] input = randomInput(n, n);
+            ValiantRecognizer valiant = new ValiantRecognizer(grammar);
+            System.out.printf("%6d %10.1f %10.1f %12.1f%n", n,
+                    time(new BitCYKParser(grammar), input, rounds),
+                    time(in -> valiant.recognize(in, in.length), input, rounds),
+                    valiant.memoryWords(n) * 8 / 1e6);
+        }
+    }
+}
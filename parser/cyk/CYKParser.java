@@ -1,5 +1,7 @@
 package parser.cyk;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -10,6 +12,9 @@ import java.util.Set;
 public class CYKParser {
     Map<String, Set<String>> grammar;
     Set<String> nonTerminals;
+    private String start = "S";
+    private boolean acceptsEmpty;
+    private boolean printTable;
 
     public CYKParser() {
         grammar = new HashMap<>();
@@ -17,14 +22,30 @@ public class CYKParser {
         loadGrammar();
     }
 
+    // Any CNF grammar, e.g. Grammar.load(path).toCnf(); terminal codes are chars
+    public CYKParser(CnfGrammar cnf) {
+        grammar = new HashMap<>();
+        nonTerminals = new HashSet<>();
+        start = cnf.name(cnf.start());
+        acceptsEmpty = cnf.acceptsEmpty();
+        for (int i = 0; i < cnf.terminalRuleCount(); i++) {
+            int[] rule = cnf.terminalRule(i);
+            addRule(cnf.name(rule[0]), String.valueOf((char) rule[1]));
+        }
+        for (int i = 0; i < cnf.binaryRuleCount(); i++) {
+            int[] rule = cnf.binaryRule(i);
+            addRule(cnf.name(rule[0]), cnf.name(rule[1]) + " " + cnf.name(rule[2]));
+        }
+    }
+
     private void loadGrammar() {
-        addRule("S", "AB");
-        addRule("S", "BC");
-        addRule("A", "BA");
+        addRule("S", "A B");
+        addRule("S", "B C");
+        addRule("A", "B A");
         addRule("A", "a");
-        addRule("B", "CC");
+        addRule("B", "C C");
         addRule("B", "b");
-        addRule("C", "AB");
+        addRule("C", "A B");
         addRule("C", "a");
 
     }
@@ -33,8 +54,32 @@ public class CYKParser {
         nonTerminals.add(lhs);
         grammar.computeIfAbsent(rhs, k -> new HashSet<>()).add(lhs);
     }
+
+    public void setPrintTable(boolean printTable) {
+        this.printTable = printTable;
+    }
+
+    // The same grammar with numbered nonterminals, for BitCYKParser
+    public CnfGrammar compile() {
+        CnfGrammar cnf = new CnfGrammar();
+        cnf.setStart(start);
+        cnf.setAcceptsEmpty(acceptsEmpty);
+        for (Map.Entry<String, Set<String>> entry : grammar.entrySet()) {
+            String rhs = entry.getKey();
+            for (String lhs : entry.getValue()) {
+                int space = rhs.indexOf(' ');
+                if (space < 0) {
+                    cnf.addTerminalRule(lhs, rhs.charAt(0));
+                } else {
+                    cnf.addBinaryRule(lhs, rhs.substring(0, space), rhs.substring(space + 1));
+                }
+            }
+        }
+        return cnf.compile();
+    }
     public boolean parse(String input) {
         int n = input.length();
+        if (n == 0) return acceptsEmpty;
         Set<String>[][] table = new HashSet[n][n + 1];
 for (int i = 0; i < n; i++) {
             for (int j = 0; j <= n; j++) {
@@ -57,7 +102,7 @@ for (int i = 0; i < n; i++) {
 
                     for (String b : leftPart) {
                         for (String c : rightPart) {
-                            String productionKey = b + c;
+                            String productionKey = b + " " + c;
 
                             if (grammar.containsKey(productionKey)) {
                                 table[i][l].addAll(grammar.get(productionKey));
@@ -67,9 +112,11 @@ for (int i = 0; i < n; i++) {
                 }
             }
         }
-        boolean accepted = table[0][n].contains("S");
+        boolean accepted = table[0][n].contains(start);
 
-        printTable(table, input);
+        if (printTable) {
+            printTable(table, input);
+        }
 
         return accepted;
     }
@@ -91,8 +138,19 @@ for (int i = 0; i < n; i++) {
         System.out.println("--------------------------------------------------");
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // java parser.cyk.CYKParser [grammar-file input...]
+        if (args.length > 0) {
+            CYKParser parser = new CYKParser(Grammar.load(Paths.get(args[0])).toCnf());
+            for (int i = 1; i < args.length; i++) {
+                System.out.println("Parsing: " + args[i]);
+                System.out.println("Result: " + (parser.parse(args[i]) ? "ACCEPTED" : "REJECTED"));
+            }
+            return;
+        }
+
         CYKParser parser = new CYKParser();
+        parser.setPrintTable(true);
 
         // Test strings
         String input1 = "baaba";
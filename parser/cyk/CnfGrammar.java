@@ -0,0 +1,147 @@
+package parser.cyk;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A grammar in Chomsky normal form with numbered nonterminals. Terminals are
+ * int codes (a char value, or a token type ordinal). Sets of nonterminals are
+ * bitmasks of words longs; compile() lays the rules out as dense tables.
+ */
+public class CnfGrammar {
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<int[]> binaryRules = new ArrayList<>();
+    private final List<int[]> terminalRules = new ArrayList<>();
+    private int start = -1;
+    private boolean acceptsEmpty;
+
+    // Dense tables, rebuilt by compile() after rules change
+    int words;
+    int terminalCount;
+    long[] terminalMasks;   // terminal code * words -> nonterminals deriving it
+    int[] pairLeft;         // distinct right-hand sides B C of the binary rules
+    int[] pairRight;
+    long[] pairMasks;       // pair * words -> every A with A -> B C
+    private boolean compiled;
+
+    public int nonTerminal(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+            compiled = false;
+        }
+        return id;
+    }
+
+    public void addTerminalRule(String lhs, int terminal) {
+        terminalRules.add(new int[]{nonTerminal(lhs), terminal});
+        compiled = false;
+    }
+
+    public void addBinaryRule(String lhs, String left, String right) {
+        binaryRules.add(new int[]{nonTerminal(lhs), nonTerminal(left), nonTerminal(right)});
+        compiled = false;
+    }
+
+    public void setStart(String name) {
+        start = nonTerminal(name);
+    }
+
+    // S -> epsilon, the one epsilon rule CNF allows
+    public void setAcceptsEmpty(boolean acceptsEmpty) {
+        this.acceptsEmpty = acceptsEmpty;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public boolean acceptsEmpty() {
+        return acceptsEmpty;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String name(int id) {
+        return names.get(id);
+    }
+
+    public int binaryRuleCount() {
+        return binaryRules.size();
+    }
+
+    // Binary rule i as {lhs, left, right}, in insertion order
+    public int[] binaryRule(int i) {
+        return binaryRules.get(i).clone();
+    }
+
+    public int terminalRuleCount() {
+        return terminalRules.size();
+    }
+
+    // Terminal rule i as {lhs, terminal code}
+    public int[] terminalRule(int i) {
+        return terminalRules.get(i).clone();
+    }
+
+    public CnfGrammar compile() {
+        if (compiled) return this;
+        if (start < 0) throw new IllegalStateException("Grammar has no start symbol");
+        int n = names.size();
+        words = Math.max(1, (n + 63) >>> 6);
+
+        terminalCount = 0;
+        for (int[] rule : terminalRules) terminalCount = Math.max(terminalCount, rule[1] + 1);
+        terminalMasks = new long[terminalCount * words];
+        for (int[] rule : terminalRules) {
+            set(terminalMasks, rule[1] * words, rule[0]);
+        }
+
+        Map<Long, Integer> pairs = new HashMap<>();
+        List<int[]> pairList = new ArrayList<>();
+        for (int[] rule : binaryRules) {
+            pairs.computeIfAbsent(((long) rule[1] << 32) | rule[2], k -> {
+                pairList.add(new int[]{rule[1], rule[2]});
+                return pairList.size() - 1;
+            });
+        }
+        pairLeft = new int[pairList.size()];
+        pairRight = new int[pairList.size()];
+        pairMasks = new long[pairList.size() * words];
+        for (int p = 0; p < pairList.size(); p++) {
+            pairLeft[p] = pairList.get(p)[0];
+            pairRight[p] = pairList.get(p)[1];
+        }
+        for (int[] rule : binaryRules) {
+            set(pairMasks, pairs.get(((long) rule[1] << 32) | rule[2]) * words, rule[0]);
+        }
+        compiled = true;
+        return this;
+    }
+
+    static void set(long[] bits, int base, int id) {
+        bits[base + (id >>> 6)] |= 1L << id;
+    }
+
+    static boolean get(long[] bits, int base, int id) {
+        return (bits[base + (id >>> 6)] & (1L << id)) != 0;
+    }
+
+    public String describe(long[] bits, int base) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int id = 0; id < names.size(); id++) {
+            if (get(bits, base, id)) {
+                if (sb.length() > 1) sb.append(", ");
+                sb.append(names.get(id));
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,332 @@
+package parser.cyk;
+
+import scanner.TokenType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * A context-free grammar read from text, one rule per line:
+ *
+ * <pre>
+ *   # comment
+ *   Expr -> Expr '+' Term | Term
+ *        |  eps
+ * </pre>
+ *
+ * A line starting with | continues the previous rule. Symbols that appear on
+ * some left-hand side are nonterminals, everything else is a terminal. The
+ * first left-hand side is the start symbol. toCnf() converts to Chomsky
+ * normal form (TERM, BIN, DEL, UNIT) and numbers the terminals with a
+ * resolver, by default the char of a one-character quoted terminal, or
+ * tokenCode for grammars over scanner.TokenType names.
+ */
+public class Grammar {
+    private final List<String> lhs = new ArrayList<>();
+    private final List<String[]> rhs = new ArrayList<>();
+    private String start;
+
+    public static Grammar load(Path path) throws IOException {
+        return parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
+    public static Grammar parse(String text) {
+        Grammar grammar = new Grammar();
+        String current = null;
+        String[] lines = text.split("\r?\n", -1);
+        for (int number = 1; number <= lines.length; number++) {
+            List<String> symbols = split(lines[number - 1], number);
+            if (symbols.isEmpty()) continue;
+            int i;
+            if (symbols.get(0).equals("|")) {
+                if (current == null) throw new IllegalArgumentException("line " + number + ": | without a rule");
+                i = 0;
+            } else {
+                if (symbols.size() < 2 || !symbols.get(1).equals("->") || isTerminal(symbols.get(0))) {
+                    throw new IllegalArgumentException("line " + number + ": expected Name -> ...");
+                }
+                current = symbols.get(0);
+                i = 1;
+            }
+            // Each | or -> opens one alternative
+            while (i < symbols.size()) {
+                int end = i + 1;
+                while (end < symbols.size() && !symbols.get(end).equals("|")) end++;
+                List<String> alternative = new ArrayList<>();
+                for (String symbol : symbols.subList(i + 1, end)) {
+                    if (symbol.equals("->")) throw new IllegalArgumentException("line " + number + ": unexpected ->");
+                    if (!symbol.equals("eps") && !symbol.equals("\u03b5")) alternative.add(symbol);
+                }
+                grammar.addRule(current, alternative.toArray(new String[0]));
+                i = end;
+            }
+        }
+        return grammar;
+    }
+
+    // Names, quoted terminals, -> and |, up to a # comment
+    private static List<String> split(String line, int number) {
+        List<String> symbols = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#') {
+                break;
+            } else if (c == '\'') {
+                StringBuilder sb = new StringBuilder("'");
+                i++;
+                while (i < line.length() && line.charAt(i) != '\'') {
+                    if (line.charAt(i) == '\\' && i + 1 < line.length()) i++;
+                    sb.append(line.charAt(i++));
+                }
+                if (i == line.length() || sb.length() == 1) {
+                    throw new IllegalArgumentException("line " + number + ": bad quoted terminal");
+                }
+                symbols.add(sb.append('\'').toString());
+                i++;
+            } else if (c == '|') {
+                symbols.add("|");
+                i++;
+            } else if (line.startsWith("->", i)) {
+                symbols.add("->");
+                i += 2;
+            } else {
+                int start = i;
+                while (i < line.length() && !Character.isWhitespace(line.charAt(i))
+                        && "'|#".indexOf(line.charAt(i)) < 0 && !line.startsWith("->", i)) {
+                    i++;
+                }
+                symbols.add(line.substring(start, i));
+            }
+        }
+        return symbols;
+    }
+
+    private static boolean isTerminal(String symbol) {
+        return symbol.charAt(0) == '\'';
+    }
+
+    // An empty rhs is an epsilon rule
+    public void addRule(String left, String... right) {
+        if (start == null) start = left;
+        lhs.add(left);
+        rhs.add(right.clone());
+    }
+
+    public void setStart(String name) {
+        start = name;
+    }
+
+    public String start() {
+        return start;
+    }
+
+    public int ruleCount() {
+        return lhs.size();
+    }
+
+    public CnfGrammar toCnf() {
+        return toCnf(Grammar::charCode);
+    }
+
+    // 'x' -> x
+    public static int charCode(String terminal) {
+        if (terminal.length() == 3 && isTerminal(terminal)) return terminal.charAt(1);
+        throw new IllegalArgumentException("No character code for terminal " + terminal);
+    }
+
+    // INT, IDENTIFIER, ... -> the scanner.TokenType ordinal, as BitCYKParser.parse(TokenBuffer) expects
+    public static int tokenCode(String terminal) {
+        try {
+            return TokenType.valueOf(terminal).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("No token type for terminal " + terminal);
+        }
+    }
+
+    /**
+     * The equivalent CNF grammar, with terminal spellings mapped to codes by
+     * terminalCode. Epsilon survives only as CnfGrammar.acceptsEmpty().
+     */
+    public CnfGrammar toCnf(ToIntFunction<String> terminalCode) {
+        if (start == null) throw new IllegalStateException("Grammar has no rules");
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        id(start, names, ids);
+        for (String name : lhs) id(name, names, ids);
+        int declared = names.size();
+
+        // Symbols: nonterminal id >= 0, terminal code c as ~c
+        List<int[]> rules = new ArrayList<>();
+        for (int r = 0; r < lhs.size(); r++) {
+            String[] right = rhs.get(r);
+            int[] rule = new int[right.length + 1];
+            rule[0] = ids.get(lhs.get(r));
+            for (int k = 0; k < right.length; k++) {
+                Integer id = ids.get(right[k]);
+                if (id != null && id < declared) {
+                    rule[k + 1] = id;
+                } else {
+                    int code = terminalCode.applyAsInt(right[k]);
+                    if (code < 0) throw new IllegalArgumentException("Negative code for terminal " + right[k]);
+                    rule[k + 1] = ~code;
+                }
+            }
+            rules.add(rule);
+        }
+
+        // TERM: terminals inside longer rules get a nonterminal of their own
+        Map<Integer, Integer> terminalNames = new HashMap<>();
+        List<int[]> term = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            int[] rule = rules.get(r);
+            if (rule.length > 2) {
+                for (int k = 1; k < rule.length; k++) {
+                    if (rule[k] >= 0) continue;
+                    int code = ~rule[k];
+                    String spelling = rhs.get(r)[k - 1];
+                    Integer helper = terminalNames.get(code);
+                    if (helper == null) {
+                        helper = id(fresh(spelling, ids), names, ids);
+                        terminalNames.put(code, helper);
+                        term.add(new int[]{helper, ~code});
+                    }
+                    rule[k] = helper;
+                }
+            }
+            term.add(rule);
+        }
+
+        // BIN: A -> X1 X2 ... Xk becomes A -> X1 A.1, A.1 -> X2 A.2, ...
+        List<int[]> bin = new ArrayList<>();
+        for (int[] rule : term) {
+            int left = rule[0];
+            int k = 1;
+            while (rule.length - k > 2) {
+                int next = id(fresh(names.get(rule[0]) + ".1", ids), names, ids);
+                bin.add(new int[]{left, rule[k], next});
+                left = next;
+                k++;
+            }
+            int[] last = new int[rule.length - k + 1];
+            last[0] = left;
+            System.arraycopy(rule, k, last, 1, rule.length - k);
+            bin.add(last);
+        }
+
+        // DEL: drop epsilon rules, adding the variants that skip a nullable symbol
+        boolean[] nullable = new boolean[names.size()];
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int[] rule : bin) {
+                if (nullable[rule[0]]) continue;
+                boolean all = true;
+                for (int k = 1; k < rule.length && all; k++) all = rule[k] >= 0 && nullable[rule[k]];
+                if (all) nullable[rule[0]] = changed = true;
+            }
+        }
+        Set<String> seen = new HashSet<>();
+        List<int[]> del = new ArrayList<>();
+        for (int[] rule : bin) {
+            if (rule.length == 1) continue;
+            add(del, seen, rule);
+            if (rule.length == 3) {
+                if (nullable[rule[1]]) add(del, seen, new int[]{rule[0], rule[2]});
+                if (nullable[rule[2]]) add(del, seen, new int[]{rule[0], rule[1]});
+            }
+        }
+
+        // UNIT: A gets the non-unit rules of every B with A ->* B through unit rules
+        List<List<Integer>> unitEdges = new ArrayList<>();
+        List<List<int[]>> proper = new ArrayList<>();
+        for (int a = 0; a < names.size(); a++) {
+            unitEdges.add(new ArrayList<>());
+            proper.add(new ArrayList<>());
+        }
+        for (int[] rule : del) {
+            if (rule.length == 2 && rule[1] >= 0) {
+                unitEdges.get(rule[0]).add(rule[1]);
+            } else {
+                proper.get(rule[0]).add(rule);
+            }
+        }
+        CnfGrammar cnf = new CnfGrammar();
+        cnf.setStart(names.get(ids.get(start)));
+        cnf.setAcceptsEmpty(nullable[ids.get(start)]);
+        seen.clear();
+        for (int a = 0; a < names.size(); a++) {
+            boolean[] reached = new boolean[names.size()];
+            int[] queue = new int[names.size()];
+            int head = 0;
+            int tail = 0;
+            reached[a] = true;
+            queue[tail++] = a;
+            while (head < tail) {
+                int b = queue[head++];
+                for (int[] rule : proper.get(b)) {
+                    int[] copy = rule.clone();
+                    copy[0] = a;
+                    if (!seen.add(Arrays.toString(copy))) continue;
+                    if (copy.length == 2) {
+                        cnf.addTerminalRule(names.get(a), ~copy[1]);
+                    } else {
+                        cnf.addBinaryRule(names.get(a), names.get(copy[1]), names.get(copy[2]));
+                    }
+                }
+                for (int c : unitEdges.get(b)) {
+                    if (!reached[c]) {
+                        reached[c] = true;
+                        queue[tail++] = c;
+                    }
+                }
+            }
+        }
+        return cnf.compile();
+    }
+
+    private static int id(String name, List<String> names, Map<String, Integer> ids) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            names.add(name);
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    private static String fresh(String name, Map<String, Integer> ids) {
+        String candidate = name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        for (int i = 1; ids.containsKey(candidate); i++) candidate = base + "." + i;
+        return candidate;
+    }
+
+    private static void add(List<int[]> rules, Set<String> seen, int[] rule) {
+        if (seen.add(Arrays.toString(rule))) rules.add(rule);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < lhs.size(); r++) {
+            sb.append(lhs.get(r)).append(" ->");
+            if (rhs.get(r).length == 0) sb.append(" eps");
+            for (String symbol : rhs.get(r)) sb.append(' ').append(symbol);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package parser.cyk;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BitCYKParser that fills each diagonal of the chart in parallel. Cells of
+ * span length l only read spans shorter than l, and cell (i, l) is the only
+ * writer of its chart words, of byStart row i and of byEnd row i + l, so the
+ * cells of one diagonal are independent; joining the diagonal's task
+ * publishes its writes before the next length starts.
+ */
+public class ParallelCYKParser extends BitCYKParser {
+    // Below this many cell-splits a range of a diagonal runs on the calling thread
+    private static final int SEQUENTIAL_WORK = 1 << 15;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCYKParser(CnfGrammar grammar) {
+        this(grammar, ForkJoinPool.commonPool());
+    }
+
+    public ParallelCYKParser(CnfGrammar grammar, ForkJoinPool pool) {
+        super(grammar);
+        this.pool = pool;
+    }
+
+    @Override
+    public boolean recognize(int[] terminals, int n) {
+        if (n == 0) return super.recognize(terminals, n);
+        layout(n);
+        fillTerminals(terminals, n);
+        for (int l = 2; l <= n; l++) {
+            int cells = n - l + 1;
+            if ((long) cells * l <= SEQUENTIAL_WORK) {
+                for (int i = 0; i < cells; i++) combine(i, l);
+            } else {
+                pool.invoke(new Diagonal(l, 0, cells));
+            }
+        }
+        return accepted();
+    }
+
+    private final class Diagonal extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int l;
+        private final int from;
+        private final int to;
+
+        Diagonal(int l, int from, int to) {
+            this.l = l;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (to - from) * l <= SEQUENTIAL_WORK || to - from < 2) {
+                for (int i = from; i < to; i++) combine(i, l);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Diagonal(l, from, mid), new Diagonal(l, mid, to));
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package parser.cyk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Shared packed parse forest of the last input a BitCYKParser accepted.
+ *
+ * A symbol node is a nonterminal over a span (start, length) and is stored
+ * once however many derivations use it. Its alternatives are packed nodes,
+ * each a binary rule with its split point and the two child symbol nodes.
+ * Symbol nodes of length 1 are terminal leaves. Only nodes reachable from
+ * the root are built, all in int arrays, and trees() walks the derivations
+ * one at a time, so an exponential number of parses costs nothing until
+ * they are asked for.
+ */
+public class ParseForest {
+    private final CnfGrammar grammar;
+    private final int[] input;
+    private final int n;
+    private final boolean accepted;
+
+    private final int[] rulesOf;
+    private final int[] ruleLeft;
+    private final int[] ruleRight;
+
+    private int nodes;
+    private int[] nodeSymbol = new int[16];
+    private int[] nodeStart = new int[16];
+    private int[] nodeLength = new int[16];
+    private int[] nodeFirst = new int[16];
+    private int[] nodeAlternatives = new int[16];
+
+    private int packed;
+    private int[] packedSplit = new int[16];
+    private int[] packedLeft = new int[16];
+    private int[] packedRight = new int[16];
+
+    // (symbol, start, length) -> node, open addressing; keys hold key + 1 so 0 is free
+    private long[] keys = new long[64];
+    private int[] values = new int[64];
+
+    private int root = -1;
+
+    ParseForest(BitCYKParser parser, int[] terminals, boolean accepted) {
+        this.grammar = parser.grammar;
+        this.n = Math.max(parser.length, 0);
+        this.input = Arrays.copyOf(terminals, n);
+        this.accepted = accepted;
+
+        // Binary rules grouped by left-hand side, each distinct rule once
+        Set<Long> distinct = new HashSet<>();
+        List<int[]> rules = new ArrayList<>();
+        for (int r = 0; r < grammar.binaryRuleCount(); r++) {
+            int[] rule = grammar.binaryRule(r);
+            if (distinct.add(((long) rule[0] << 42) | ((long) rule[1] << 21) | rule[2])) rules.add(rule);
+        }
+        rulesOf = new int[grammar.size() + 1];
+        for (int[] rule : rules) rulesOf[rule[0] + 1]++;
+        for (int a = 0; a < grammar.size(); a++) rulesOf[a + 1] += rulesOf[a];
+        ruleLeft = new int[rules.size()];
+        ruleRight = new int[rules.size()];
+        int[] fill = Arrays.copyOf(rulesOf, grammar.size());
+        for (int[] rule : rules) {
+            int at = fill[rule[0]]++;
+            ruleLeft[at] = rule[1];
+            ruleRight[at] = rule[2];
+        }
+
+        if (accepted && n > 0) build(parser);
+    }
+
+    // Expands nodes from the root with an explicit stack
+    private void build(BitCYKParser parser) {
+        int[] pending = new int[16];
+        int top = 0;
+        root = node(grammar.start(), 0, n);
+        pending[top++] = root;
+        while (top > 0) {
+            int x = pending[--top];
+            int a = nodeSymbol[x];
+            int i = nodeStart[x];
+            int e = i + nodeLength[x];
+            nodeFirst[x] = packed;
+            if (e - i == 1) continue;
+            for (int r = rulesOf[a]; r < rulesOf[a + 1]; r++) {
+                int left = parser.row(ruleLeft[r], i);
+                int right = parser.row(ruleRight[r], e);
+                for (int w = (i + 1) >>> 6; w <= (e - 1) >>> 6; w++) {
+                    long splits = parser.byStart[left + w] & parser.byEnd[right + w];
+                    while (splits != 0) {
+                        int m = (w << 6) + Long.numberOfTrailingZeros(splits);
+                        splits &= splits - 1;
+                        int before = nodes;
+                        int b = node(ruleLeft[r], i, m - i);
+                        int c = node(ruleRight[r], m, e - m);
+                        addPacked(m, b, c);
+                        if (top + 2 > pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+                        if (b >= before) pending[top++] = b;
+                        if (c >= before) pending[top++] = c;
+                    }
+                }
+            }
+            nodeAlternatives[x] = packed - nodeFirst[x];
+        }
+    }
+
+    private int node(int symbol, int start, int length) {
+        long key = ((long) symbol * (n + 1) + start) * (n + 1) + length + 1;
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        if (nodes == nodeSymbol.length) {
+            int size = nodes * 2;
+            nodeSymbol = Arrays.copyOf(nodeSymbol, size);
+            nodeStart = Arrays.copyOf(nodeStart, size);
+            nodeLength = Arrays.copyOf(nodeLength, size);
+            nodeFirst = Arrays.copyOf(nodeFirst, size);
+            nodeAlternatives = Arrays.copyOf(nodeAlternatives, size);
+        }
+        nodeSymbol[nodes] = symbol;
+        nodeStart[nodes] = start;
+        nodeLength[nodes] = length;
+        keys[slot] = key;
+        values[slot] = nodes;
+        if (++nodes * 2 > keys.length) rehash();
+        return nodes - 1;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int s = 0; s < oldKeys.length; s++) {
+            long key = oldKeys[s];
+            if (key == 0) continue;
+            int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 & mask;
+            while (keys[slot] != 0) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[s];
+        }
+    }
+
+    private void addPacked(int split, int left, int right) {
+        if (packed == packedSplit.length) {
+            int size = packed * 2;
+            packedSplit = Arrays.copyOf(packedSplit, size);
+            packedLeft = Arrays.copyOf(packedLeft, size);
+            packedRight = Arrays.copyOf(packedRight, size);
+        }
+        packedSplit[packed] = split;
+        packedLeft[packed] = left;
+        packedRight[packed] = right;
+        packed++;
+    }
+
+    public boolean accepted() {
+        return accepted;
+    }
+
+    // -1 when rejected, or for the empty input
+    public int root() {
+        return root;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    public int packedCount() {
+        return packed;
+    }
+
+    public int symbol(int node) {
+        return nodeSymbol[node];
+    }
+
+    public int start(int node) {
+        return nodeStart[node];
+    }
+
+    public int length(int node) {
+        return nodeLength[node];
+    }
+
+    // Packed nodes below a symbol node; 0 for a terminal leaf
+    public int alternatives(int node) {
+        return nodeAlternatives[node];
+    }
+
+    public int split(int node, int alternative) {
+        return packedSplit[nodeFirst[node] + alternative];
+    }
+
+    public int left(int node, int alternative) {
+        return packedLeft[nodeFirst[node] + alternative];
+    }
+
+    public int right(int node, int alternative) {
+        return packedRight[nodeFirst[node] + alternative];
+    }
+
+    public int terminal(int position) {
+        return input[position];
+    }
+
+    public CnfGrammar grammar() {
+        return grammar;
+    }
+
+    // Number of distinct parse trees, saturating at Long.MAX_VALUE
+    public long treeCount() {
+        if (!accepted) return 0;
+        if (root < 0) return 1;
+        // Children are strictly shorter than their parent, so count by increasing length
+        int[] byLength = new int[n + 2];
+        for (int x = 0; x < nodes; x++) byLength[nodeLength[x] + 1]++;
+        for (int l = 1; l <= n + 1; l++) byLength[l] += byLength[l - 1];
+        int[] order = new int[nodes];
+        for (int x = 0; x < nodes; x++) order[byLength[nodeLength[x]]++] = x;
+
+        long[] count = new long[nodes];
+        for (int x : order) {
+            if (nodeLength[x] == 1) {
+                count[x] = 1;
+                continue;
+            }
+            long sum = 0;
+            for (int p = nodeFirst[x]; p < nodeFirst[x] + nodeAlternatives[x]; p++) {
+                long l = count[packedLeft[p]];
+                long r = count[packedRight[p]];
+                long product = l != 0 && r > Long.MAX_VALUE / l ? Long.MAX_VALUE : l * r;
+                sum = product > Long.MAX_VALUE - sum ? Long.MAX_VALUE : sum + product;
+            }
+            count[x] = sum;
+        }
+        return count[root];
+    }
+
+    /**
+     * Every parse tree, one per next(). The choice of packed node at each
+     * position of the preorder walk works like an odometer: the next tree
+     * bumps the last choice that has alternatives left and resets the rest.
+     */
+    public Iterator<ParseTree> trees() {
+        return new Trees();
+    }
+
+    private final class Trees implements Iterator<ParseTree> {
+        // A tree over n terminals has 2n - 1 nodes
+        private final int size = Math.max(2 * n - 1, 0);
+        private final int[] order = new int[size];
+        private final int[] choice = new int[size];
+        private final int[] stack = new int[size + 1];
+        private boolean ready = accepted;
+        private boolean done = !accepted;
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done) advance();
+            return ready;
+        }
+
+        @Override
+        public ParseTree next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            ready = false;
+            if (size == 0) done = true;
+            int[] symbols = new int[size];
+            int[] starts = new int[size];
+            int[] lengths = new int[size];
+            walk();
+            for (int k = 0; k < size; k++) {
+                symbols[k] = nodeSymbol[order[k]];
+                starts[k] = nodeStart[order[k]];
+                lengths[k] = nodeLength[order[k]];
+            }
+            return new ParseTree(ParseForest.this, symbols, starts, lengths);
+        }
+
+        private void advance() {
+            for (int k = size - 1; k >= 0; k--) {
+                if (choice[k] + 1 < nodeAlternatives[order[k]]) {
+                    choice[k]++;
+                    Arrays.fill(choice, k + 1, size, 0);
+                    ready = true;
+                    return;
+                }
+            }
+            done = true;
+        }
+
+        // Preorder of the tree the current choices select
+        private void walk() {
+            if (size == 0) return;
+            int top = 0;
+            int k = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int x = stack[--top];
+                order[k] = x;
+                if (nodeLength[x] > 1) {
+                    int p = nodeFirst[x] + choice[k];
+                    stack[top++] = packedRight[p];
+                    stack[top++] = packedLeft[p];
+                }
+                k++;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        Grammar sums = Grammar.parse("E -> E '+' E | '1'");
+        BitCYKParser parser = new BitCYKParser(sums.toCnf());
+
+        String input = "1+1+1+1+1";
+        parser.parse(input);
+        ParseForest forest = parser.forest();
+        System.out.printf("%s: %d trees, %d symbol nodes, %d packed nodes%n",
+                input, forest.treeCount(), forest.nodeCount(), forest.packedCount());
+        Iterator<ParseTree> trees = forest.trees();
+        for (int k = 0; k < 3 && trees.hasNext(); k++) {
+            System.out.println("  " + trees.next());
+        }
+
+        StringBuilder longSum = new StringBuilder("1");
+        for (int k = 0; k < 200; k++) longSum.append("+1");
+        parser.parse(longSum.toString());
+        forest = parser.forest();
+        System.out.printf("200 additions: %s trees, %d symbol nodes, %d packed nodes, first tree has %d nodes%n",
+                forest.treeCount() == Long.MAX_VALUE ? "> 2^63" : String.valueOf(forest.treeCount()),
+                forest.nodeCount(), forest.packedCount(), forest.trees().next().size());
+    }
+}
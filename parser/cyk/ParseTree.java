@@ -0,0 +1,69 @@
+package parser.cyk;
+
+import java.util.function.IntFunction;
+
+/**
+ * One derivation from a ParseForest, as flat preorder arrays. A node of
+ * length 1 is a terminal leaf; any other node has exactly two children, the
+ * first right after it and the second after the first one's subtree.
+ */
+public class ParseTree {
+    private final ParseForest forest;
+    private final int[] symbols;
+    private final int[] starts;
+    private final int[] lengths;
+
+    ParseTree(ParseForest forest, int[] symbols, int[] starts, int[] lengths) {
+        this.forest = forest;
+        this.symbols = symbols;
+        this.starts = starts;
+        this.lengths = lengths;
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public int symbol(int k) {
+        return symbols[k];
+    }
+
+    public int start(int k) {
+        return starts[k];
+    }
+
+    public int length(int k) {
+        return lengths[k];
+    }
+
+    public boolean isLeaf(int k) {
+        return lengths[k] == 1;
+    }
+
+    @Override
+    public String toString() {
+        return toString(code -> String.valueOf((char) code));
+    }
+
+    // Bracketed form, (S (A a) (B b)), naming terminal codes with terminalName
+    public String toString(IntFunction<String> terminalName) {
+        StringBuilder sb = new StringBuilder();
+        int[] open = new int[symbols.length + 1];
+        int top = 0;
+        for (int k = 0; k < symbols.length; k++) {
+            if (k > 0) sb.append(' ');
+            sb.append('(').append(forest.grammar().name(symbols[k]));
+            if (!isLeaf(k)) {
+                open[top++] = 2;
+                continue;
+            }
+            sb.append(' ').append(terminalName.apply(forest.terminal(starts[k]))).append(')');
+            // Close every node whose last child just ended
+            while (top > 0 && --open[top - 1] == 0) {
+                top--;
+                sb.append(')');
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package parser.cyk;
+
+import scanner.ScannerBenchmark;
+import scanner.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Recognizes scanner output with the token-level mini-C grammar:
+ * java parser.cyk.TokenCYK [grammar-file [source-file]]
+ */
+public class TokenCYK {
+
+    public static void main(String[] args) throws IOException {
+        Path grammarFile = Paths.get(args.length > 0 ? args[0] : "parser/cyk/minic.grammar");
+        CnfGrammar grammar = Grammar.load(grammarFile).toCnf(Grammar::tokenCode);
+        BitCYKParser parser = new BitCYKParser(grammar);
+        System.out.printf("%s: %d nonterminals, %d binary rules in CNF%n",
+                grammarFile, grammar.size(), grammar.binaryRuleCount());
+
+        if (args.length > 1) {
+            TokenBuffer tokens = TokenBuffer.lex(new String(Files.readAllBytes(Paths.get(args[1])), StandardCharsets.UTF_8));
+            System.out.println("Result: " + (parser.parse(tokens) ? "ACCEPTED" : "REJECTED"));
+            return;
+        }
+
+        System.out.println("Parsing: int x = 1; x = x + ;");
+        System.out.println("Result: " + (parser.parse(TokenBuffer.lex("int x = 1; x = x + ;")) ? "ACCEPTED" : "REJECTED"));
+
+        String danglingElse = "if (a) if (b) x = 1; else x = 2;";
+        parser.parse(TokenBuffer.lex(danglingElse));
+        System.out.println("Parse trees for " + danglingElse + ": " + parser.forest().treeCount());
+
+        for (int chars = 500; chars <= 8000; chars *= 2) {
+            TokenBuffer tokens = TokenBuffer.lex(ScannerBenchmark.generateSource(chars));
+            long best = Long.MAX_VALUE;
+            boolean accepted = false;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                accepted = parser.parse(tokens);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("%6d tokens: %s in %.1f ms%n", tokens.size() - 1,
+                    accepted ? "ACCEPTED" : "REJECTED", best / 1e6);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package parser.cyk;
+
+/**
+ * Context-free recognition by Boolean matrix multiplication, after Valiant,
+ * in the divide-and-conquer form given by Okhotin (2014). Accepts exactly the
+ * strings BitCYKParser accepts.
+ *
+ * T[A] is a bit matrix over positions 0..n with T[A][i][j] set when A
+ * derives symbols i..j-1, and P[p] collects, per right-hand side p = B C,
+ * the spans for which some split into B and C is already known. All the
+ * superlinear work happens in multiply(), one block product per right-hand
+ * side, done by the method of Four Russians: rows of the right operand are
+ * taken g at a time, all 2^g unions of each group are tabulated, and every
+ * row of the left operand then needs one table lookup per group instead of
+ * g row unions. With g near log2 of the block size, a product of b x b
+ * blocks costs O(b^3 / (64 g)) word operations, so the recognizer runs in
+ * O(|G| n^3 / (64 log n)) time.
+ *
+ * Blocks are split in halves of any size, so matrices are (n + 1) x (n + 1)
+ * with no padding to a power of two: memory is (nonterminals + pairs) *
+ * (n + 1) * ceil((n + 1) / 64) longs, plus one 2^8-row lookup table.
+ */
+public class ValiantRecognizer {
+    private static final int MAX_GROUP = 8;
+    // Narrower left blocks use plain row unions; tabulating would cost more than it saves
+    private static final int MIN_TABLE_ROWS = 16;
+
+    private final CnfGrammar grammar;
+    private int size;
+    private int rowWords;
+    private long[][] t;
+    private long[][] p;
+    private long[] table = new long[0];
+    private int[] terminals;
+    private int n;
+
+    public ValiantRecognizer(CnfGrammar grammar) {
+        this.grammar = grammar.compile();
+    }
+
+    public boolean parse(String input) {
+        int[] codes = new int[input.length()];
+        for (int i = 0; i < codes.length; i++) codes[i] = input.charAt(i);
+        return recognize(codes, codes.length);
+    }
+
+    public boolean recognize(int[] terminals, int n) {
+        if (n == 0) return grammar.acceptsEmpty();
+        this.terminals = terminals;
+        this.n = n;
+        size = n + 1;                             // positions 0..n
+        rowWords = (size + 63) >>> 6;
+        t = matrices(grammar.size());
+        p = matrices(grammar.pairLeft.length);
+        compute(0, size);
+        boolean accepted = get(t[grammar.start()], 0, n);
+        t = null;
+        p = null;
+        return accepted;
+    }
+
+    // Longs held by the T and P matrices for an input of length n
+    public long memoryWords(int n) {
+        long positions = n + 1;
+        return (grammar.size() + grammar.pairLeft.length) * positions * ((positions + 63) >>> 6);
+    }
+
+    private long[][] matrices(int count) {
+        long[][] result = new long[count][];
+        for (int i = 0; i < count; i++) result[i] = new long[size * rowWords];
+        return result;
+    }
+
+    // All T[i][j] with l <= i < j < m
+    private void compute(int l, int m) {
+        if (m - l < 2) return;
+        int mid = (l + m) >>> 1;
+        compute(l, mid);
+        compute(mid, m);
+        complete(l, mid, mid, m);
+    }
+
+    /**
+     * All T[i][j] with i in [l, m) and j in [l2, m2), given the spans inside
+     * both ranges and, in P, every split that falls between them. A range of
+     * one position is not split further.
+     */
+    private void complete(int l, int m, int l2, int m2) {
+        boolean splitRows = m - l > 1;
+        boolean splitColumns = m2 - l2 > 1;
+        if (!splitRows && !splitColumns) {
+            if (m == l2) {
+                setTerminal(l);
+            } else {
+                reduce(l, l2);
+            }
+            return;
+        }
+        if (!splitColumns) {
+            int b2 = (l + m) >>> 1;
+            complete(b2, m, l2, m2);
+            multiply(l, b2, b2, m, l2, m2);
+            complete(l, b2, l2, m2);
+            return;
+        }
+        if (!splitRows) {
+            int c2 = (l2 + m2) >>> 1;
+            complete(l, m, l2, c2);
+            multiply(l, m, l2, c2, c2, m2);
+            complete(l, m, c2, m2);
+            return;
+        }
+        int b2 = (l + m) >>> 1;
+        int c2 = (l2 + m2) >>> 1;
+        complete(b2, m, l2, c2);
+        multiply(l, b2, b2, m, l2, c2);
+        complete(l, b2, l2, c2);
+        multiply(b2, m, l2, c2, c2, m2);
+        complete(b2, m, c2, m2);
+        multiply(l, b2, b2, m, c2, m2);
+        multiply(l, b2, l2, c2, c2, m2);
+        complete(l, b2, c2, m2);
+    }
+
+    private void setTerminal(int i) {
+        if (i >= n) return;
+        int code = terminals[i];
+        if (code < 0 || code >= grammar.terminalCount) return;
+        long[] masks = grammar.terminalMasks;
+        int base = code * grammar.words;
+        for (int a = 0; a < grammar.size(); a++) {
+            if (CnfGrammar.get(masks, base, a)) set(t[a], i, i + 1);
+        }
+    }
+
+    // T[i][j] = every A -> B C whose pair has a split recorded in P[i][j]
+    private void reduce(int i, int j) {
+        int words = grammar.words;
+        for (int pair = 0; pair < p.length; pair++) {
+            if (!get(p[pair], i, j)) continue;
+            for (int a = 0; a < grammar.size(); a++) {
+                if (CnfGrammar.get(grammar.pairMasks, pair * words, a)) set(t[a], i, j);
+            }
+        }
+    }
+
+    /**
+     * P[X][Z] |= T[B][X][Y] * T[C][Y][Z] for every pair B C, with X, Y and Z
+     * the position ranges [x, x2), [y, y2) and [z, z2).
+     */
+    private void multiply(int x, int x2, int y, int y2, int z, int z2) {
+        int fromWord = z >>> 6;
+        int toWord = (z2 - 1) >>> 6;
+        int width = toWord - fromWord + 1;
+        long firstMask = -1L << (z & 63);
+        long lastMask = -1L >>> (63 - ((z2 - 1) & 63));
+        if (fromWord == toWord) firstMask &= lastMask;
+        int rows = x2 - x;
+        int group = Math.min(MAX_GROUP, 31 - Integer.numberOfLeadingZeros(rows));
+        if (rows < MIN_TABLE_ROWS) group = 0;
+        if (table.length < width << MAX_GROUP) table = new long[width << MAX_GROUP];
+
+        for (int pair = 0; pair < p.length; pair++) {
+            long[] left = t[grammar.pairLeft[pair]];
+            long[] right = t[grammar.pairRight[pair]];
+            long[] out = p[pair];
+            if (group == 0) {
+                for (int i = x; i < x2; i++) {
+                    int row = i * rowWords;
+                    for (int k = y; k < y2; k++) {
+                        if ((left[row + (k >>> 6)] & (1L << k)) == 0) continue;
+                        int source = k * rowWords;
+                        out[row + fromWord] |= right[source + fromWord] & firstMask;
+                        for (int v = fromWord + 1; v < toWord; v++) out[row + v] |= right[source + v];
+                        if (toWord > fromWord) out[row + toWord] |= right[source + toWord] & lastMask;
+                    }
+                }
+                continue;
+            }
+            for (int k = y; k < y2; k += group) {
+                int g = Math.min(group, y2 - k);
+                if (!tabulate(right, k, g, fromWord, width, firstMask, lastMask)) continue;
+                int word = k >>> 6;
+                int shift = k & 63;
+                long groupMask = (1L << g) - 1;
+                boolean straddles = shift + g > 64;
+                for (int i = x; i < x2; i++) {
+                    int row = i * rowWords;
+                    long bits = left[row + word] >>> shift;
+                    if (straddles) bits |= left[row + word + 1] << (64 - shift);
+                    int index = (int) (bits & groupMask);
+                    if (index == 0) continue;
+                    int entry = index * width;
+                    int target = row + fromWord;
+                    for (int v = 0; v < width; v++) out[target + v] |= table[entry + v];
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills table entry s (width words each) with the union of the rows
+     * k + b of right for every bit b set in s, restricted to the Z columns.
+     * Returns false if all those rows are empty there, so the group adds
+     * nothing.
+     */
+    private boolean tabulate(long[] right, int k, int g, int fromWord, int width, long firstMask, long lastMask) {
+        boolean any = false;
+        for (int v = 0; v < width; v++) table[v] = 0;
+        for (int b = 0; b < g; b++) {
+            int bit = 1 << b;
+            int entry = bit * width;
+            int source = (k + b) * rowWords + fromWord;
+            for (int v = 0; v < width; v++) {
+                long word = right[source + v];
+                if (v == 0) word &= firstMask;
+                if (v == width - 1) word &= lastMask;
+                table[entry + v] = word;
+                if (word != 0) any = true;
+            }
+            // Every entry with b as its highest bit is that row plus an entry already filled
+            for (int s = bit + 1; s < bit << 1; s++) {
+                int to = s * width;
+                int from = (s - bit) * width;
+                for (int v = 0; v < width; v++) table[to + v] = table[entry + v] | table[from + v];
+            }
+        }
+        return any;
+    }
+
+    private boolean get(long[] matrix, int i, int j) {
+        return (matrix[i * rowWords + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    private void set(long[] matrix, int i, int j) {
+        matrix[i * rowWords + (j >>> 6)] |= 1L << j;
+    }
+
+    public static void main(String[] args) {
+        ValiantRecognizer recognizer = new ValiantRecognizer(new CYKParser().compile());
+        for (String input : new String[]{"baaba", "bbbbb"}) {
+            System.out.println("Parsing: " + input);
+            System.out.println("Result: " + (recognizer.parse(input) ? "ACCEPTED" : "REJECTED"));
+        }
+    }
+}
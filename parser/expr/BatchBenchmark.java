@@ -0,0 +1,56 @@
+package parser.expr;
+
+import parser.ll1.LL1Parser;
+
+import java.util.Random;
+
+/**
+ * Rows per second for one expression over columns of random bindings,
+ * evaluated row by row through Program and block by block through
+ * BatchEvaluator.
+ */
+public class BatchBenchmark {
+    public static void main(String[] args) {
+        String source = args.length > 0 ? args[0] : "a * (b + c) / 4 - d * d";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1 << 20;
+        int rounds = 5;
+
+        Program program = LL1Parser.compile(source);
+        Random random = new Random(1);
+        double[][] columns = new double[program.variableCount()][rows];
+        for (double[] column : columns) {
+            for (int i = 0; i < rows; i++) column[i] = random.nextDouble() * 100;
+        }
+
+        double[] perRow = new double[rows];
+        double[] values = new double[program.variableCount()];
+        double[] stack = new double[program.maxStack()];
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rows; i++) {
+                for (int v = 0; v < values.length; v++) values[v] = columns[v][i];
+                perRow[i] = program.evaluate(values, stack);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %8.2f ns/row %10.1f M rows/s%n", "Program, row by row", (double) best / rows, rows * 1e3 / best);
+
+        BatchEvaluator batch = new BatchEvaluator(program);
+        double[] out = new double[rows];
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            batch.evaluate(columns, rows, out);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %8.2f ns/row %10.1f M rows/s%n", "BatchEvaluator", (double) best / rows, rows * 1e3 / best);
+
+        for (int i = 0; i < rows; i++) {
+            if (Double.doubleToLongBits(out[i]) != Double.doubleToLongBits(perRow[i])) {
+                throw new IllegalStateException("Row " + i + ": " + out[i] + " != " + perRow[i]);
+            }
+        }
+        System.out.println(source + " over " + rows + " rows, results identical");
+    }
+}
@@ -0,0 +1,111 @@
+package parser.expr;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Evaluates one Program over many rows of variable bindings held as columns,
+ * one double[] per variable. Rows are processed a block at a time: each
+ * instruction runs once per block as a plain loop over double arrays, which
+ * C2 unrolls and vectorizes, instead of once per row through the dispatch
+ * switch.
+ *
+ * Holds scratch blocks, so an instance is not thread-safe; it is cheap to
+ * create one per thread.
+ */
+public final class BatchEvaluator {
+    public static final int BLOCK = 1024;
+
+    private final Program program;
+    // One block per stack slot, then one per temporary
+    private final double[][] stack;
+
+    public BatchEvaluator(Program program) {
+        this.program = program;
+        this.stack = new double[program.maxStack + program.temps][BLOCK];
+    }
+
+    public Program program() {
+        return program;
+    }
+
+    // Columns by name; every variable of the program must have one with at least rows values
+    public double[] evaluate(Map<String, double[]> columns, int rows) {
+        double[][] bySlot = new double[program.variables.length][];
+        for (int slot = 0; slot < bySlot.length; slot++) {
+            bySlot[slot] = columns.get(program.variables[slot]);
+            if (bySlot[slot] == null) throw new IllegalArgumentException("No column for variable " + program.variables[slot]);
+        }
+        double[] out = new double[rows];
+        evaluate(bySlot, rows, out);
+        return out;
+    }
+
+    // Columns by slot, see Program.variable(int); results go to out[0..rows)
+    public void evaluate(double[][] columns, int rows, double[] out) {
+        if (columns.length < program.variables.length) {
+            throw new IllegalArgumentException("Expected " + program.variables.length + " columns but got " + columns.length);
+        }
+        for (int slot = 0; slot < program.variables.length; slot++) {
+            if (columns[slot].length < rows) {
+                throw new IllegalArgumentException("Column " + program.variables[slot] + " has fewer than " + rows + " rows");
+            }
+        }
+        if (out.length < rows) throw new IllegalArgumentException("Output has fewer than " + rows + " rows");
+        for (int from = 0; from < rows; from += BLOCK) {
+            int length = Math.min(BLOCK, rows - from);
+            block(columns, from, length);
+            System.arraycopy(stack[0], 0, out, from, length);
+        }
+    }
+
+    private void block(double[][] columns, int from, int length) {
+        final int[] code = program.code;
+        final double[][] stack = this.stack;
+        final int tempBase = program.maxStack; // temporaries sit above the operand stack
+        int sp = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case Program.CONST:
+                    Arrays.fill(stack[sp++], 0, length, program.constants[code[pc++]]);
+                    break;
+                case Program.LOAD:
+                    System.arraycopy(columns[code[pc++]], from, stack[sp++], 0, length);
+                    break;
+                case Program.ADD: {
+                    sp--;
+                    double[] a = stack[sp - 1], b = stack[sp];
+                    for (int i = 0; i < length; i++) a[i] += b[i];
+                    break;
+                }
+                case Program.SUB: {
+                    sp--;
+                    double[] a = stack[sp - 1], b = stack[sp];
+                    for (int i = 0; i < length; i++) a[i] -= b[i];
+                    break;
+                }
+                case Program.MUL: {
+                    sp--;
+                    double[] a = stack[sp - 1], b = stack[sp];
+                    for (int i = 0; i < length; i++) a[i] *= b[i];
+                    break;
+                }
+                case Program.DIV: {
+                    sp--;
+                    double[] a = stack[sp - 1], b = stack[sp];
+                    for (int i = 0; i < length; i++) a[i] /= b[i];
+                    break;
+                }
+                case Program.STORE:
+                    System.arraycopy(stack[sp - 1], 0, stack[tempBase + code[pc++]], 0, length);
+                    break;
+                case Program.FETCH:
+                    System.arraycopy(stack[tempBase + code[pc++]], 0, stack[sp++], 0, length);
+                    break;
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package parser.expr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns a Program into a hidden class implementing CompiledExpression whose
+ * evaluate method is the expression as straight-line JVM bytecode: ldc2_w
+ * for constants, daload from the values array for variables,
+ * dadd/dsub/dmul/ddiv, and double locals for temporaries. C2 compiles and inlines it like hand-written code.
+ *
+ * The class file is written by hand since it needs only a constructor and
+ * one branch-free method, so there is no StackMapTable. Hidden classes are
+ * unloaded once their instance is unreachable.
+ */
+public final class BytecodeCompiler {
+    private static final String NAME = "parser/expr/GeneratedExpression";
+
+    // Opcodes used in generated code
+    private static final int ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, BIPUSH = 0x10, SIPUSH = 0x11;
+    private static final int LDC2_W = 0x14, DLOAD = 0x18, DALOAD = 0x31, DSTORE = 0x39, DUP2 = 0x5c;
+    private static final int DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f;
+    private static final int DRETURN = 0xaf, RETURN = 0xb1, INVOKESPECIAL = 0xb7;
+
+    private BytecodeCompiler() {
+    }
+
+    public static CompiledExpression compile(Program program) {
+        byte[] bytes = classFile(program);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClass(bytes, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+            return (CompiledExpression) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define class for\n" + program, e);
+        }
+    }
+
+    static byte[] classFile(Program program) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int itf = pool.classRef("parser/expr/CompiledExpression");
+        int superInit = pool.methodRef(superClass, "<init>", "()V");
+        int init = pool.utf8("<init>");
+        int voidDescriptor = pool.utf8("()V");
+        int evaluate = pool.utf8("evaluate");
+        int evaluateDescriptor = pool.utf8("([D)D");
+        int codeAttribute = pool.utf8("Code");
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int[] code = program.code;
+        for (int pc = 0; pc < code.length; ) {
+            switch (code[pc++]) {
+                case Program.CONST: {
+                    int index = pool.doubleConstant(program.constants[code[pc++]]);
+                    body.write(LDC2_W);
+                    body.write(index >> 8);
+                    body.write(index);
+                    break;
+                }
+                case Program.LOAD: {
+                    int slot = code[pc++];
+                    body.write(ALOAD_1);
+                    if (slot <= Byte.MAX_VALUE) {
+                        body.write(BIPUSH);
+                        body.write(slot);
+                    } else if (slot <= Short.MAX_VALUE) {
+                        body.write(SIPUSH);
+                        body.write(slot >> 8);
+                        body.write(slot);
+                    } else {
+                        throw new IllegalArgumentException("Too many variables to compile: " + program.variableCount());
+                    }
+                    body.write(DALOAD);
+                    break;
+                }
+                case Program.ADD: body.write(DADD); break;
+                case Program.SUB: body.write(DSUB); break;
+                case Program.MUL: body.write(DMUL); break;
+                case Program.DIV: body.write(DDIV); break;
+                case Program.STORE:
+                    body.write(DUP2);
+                    body.write(DSTORE);
+                    body.write(local(program, code[pc++]));
+                    break;
+                case Program.FETCH:
+                    body.write(DLOAD);
+                    body.write(local(program, code[pc++]));
+                    break;
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+        body.write(DRETURN);
+        if (body.size() > 0xffff) throw new IllegalArgumentException("Expression too large to compile: " + body.size() + " bytes");
+        if (pool.count > 0xffff) throw new IllegalArgumentException("Too many constants to compile: " + pool.count);
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xcafebabe);
+            out.writeShort(0);
+            out.writeShort(52); // Java 8: no branches, so no stack maps needed
+            out.writeShort(pool.count);
+            pool.bytes.writeTo(out);
+            out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(itf);
+            out.writeShort(0); // fields
+            out.writeShort(2); // methods
+
+            out.writeShort(0x0001);
+            out.writeShort(init);
+            out.writeShort(voidDescriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + 5);
+            out.writeShort(1); // max stack
+            out.writeShort(1); // max locals
+            out.writeInt(5);
+            out.writeByte(ALOAD_0);
+            out.writeByte(INVOKESPECIAL);
+            out.writeShort(superInit);
+            out.writeByte(RETURN);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+
+            out.writeShort(0x0001 | 0x0010);
+            out.writeShort(evaluate);
+            out.writeShort(evaluateDescriptor);
+            out.writeShort(1);
+            out.writeShort(codeAttribute);
+            out.writeInt(12 + body.size());
+            // Two words per double on the stack, plus the array and index of a load
+            out.writeShort(2 * program.maxStack + 2);
+            out.writeShort(2 + 2 * program.temps); // this, values, temporaries
+            out.writeInt(body.size());
+            body.writeTo(out);
+            out.writeShort(0);
+            out.writeShort(0);
+
+            out.writeShort(0); // class attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Temporaries follow this and values, two words each
+    private static int local(Program program, int temp) {
+        int local = 2 + 2 * temp;
+        if (local > 0xff) throw new IllegalArgumentException("Too many temporaries to compile: " + program.temps);
+        return local;
+    }
+
+    // Constant pool entries, deduplicated; count is the next free index
+    private static final class ConstantPool {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final Map<Object, Integer> indexes = new HashMap<>();
+        int count = 1;
+
+        int utf8(String value) {
+            Integer index = indexes.get("utf8 " + value);
+            if (index != null) return index;
+            write(() -> {
+                out.writeByte(1);
+                out.writeUTF(value);
+            });
+            return add("utf8 " + value, 1);
+        }
+
+        int classRef(String name) {
+            Integer index = indexes.get("class " + name);
+            if (index != null) return index;
+            int nameIndex = utf8(name);
+            write(() -> {
+                out.writeByte(7);
+                out.writeShort(nameIndex);
+            });
+            return add("class " + name, 1);
+        }
+
+        int methodRef(int owner, String name, String descriptor) {
+            String key = "method " + owner + " " + name + descriptor;
+            Integer index = indexes.get(key);
+            if (index != null) return index;
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = count;
+            write(() -> {
+                out.writeByte(12);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+            });
+            add("nameAndType " + name + descriptor, 1);
+            write(() -> {
+                out.writeByte(10);
+                out.writeShort(owner);
+                out.writeShort(nameAndType);
+            });
+            return add(key, 1);
+        }
+
+        // Keyed by bits, so -0.0 and NaN payloads survive
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            Integer index = indexes.get(bits);
+            if (index != null) return index;
+            write(() -> {
+                out.writeByte(6);
+                out.writeLong(bits);
+            });
+            // Doubles take two entries
+            return add(bits, 2);
+        }
+
+        private int add(Object key, int size) {
+            int index = count;
+            indexes.put(key, index);
+            count += size;
+            return index;
+        }
+
+        private void write(Entry entry) {
+            try {
+                entry.write();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private interface Entry {
+            void write() throws IOException;
+        }
+    }
+}
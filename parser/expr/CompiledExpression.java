@@ -0,0 +1,11 @@
+package parser.expr;
+
+/**
+ * An expression ready to evaluate against variable values by slot, see
+ * Program.variable(int). Program interprets its code; BytecodeCompiler
+ * generates a class whose evaluate is the expression itself.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+    double evaluate(double[] values);
+}
@@ -0,0 +1,71 @@
+package parser.expr;
+
+import parser.recursiveDescent.Recursive_Descent;
+
+import java.util.Random;
+
+/**
+ * Evaluations per second of the same formulas, re-parsed from source each
+ * time, compiled once into a Program, and looked up through an
+ * ExpressionCache. The formulas are all literals, so the optimizer folds each
+ * one to a single constant; the unoptimized rows time the interpreter itself.
+ */
+public class ExpressionBenchmark {
+    static final String[] FORMULAS = {
+            "10 + 3 * (2 - 1)",
+            "(1 + 2) * (3 + 4) / (5 - 6) + 7 * 8 - 9",
+            "((((1 + 2) * 3 - 4) / 5 + 6) * 7 - 8) / 9 + 10 * (11 - 12 / (13 + 14))",
+    };
+
+    interface Evaluation {
+        double run(int formula);
+    }
+
+    static void measure(String name, int iterations, int rounds, Evaluation evaluation) {
+        long best = Long.MAX_VALUE;
+        double sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) sink += evaluation.run(i % FORMULAS.length);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %8.1f ns/eval %10.2f M evals/s   (%s)%n",
+                name, (double) best / iterations, iterations * 1e3 / best, sink == 0 ? "" : "ok");
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rounds = 5;
+
+        Program[] programs = new Program[FORMULAS.length];
+        Program[] optimized = new Program[FORMULAS.length];
+        for (int i = 0; i < programs.length; i++) {
+            programs[i] = Recursive_Descent.compileUnoptimized(FORMULAS[i]);
+            optimized[i] = Recursive_Descent.compile(FORMULAS[i]);
+        }
+        double[] stack = new double[64];
+        double[] none = new double[0];
+
+        measure("lex + parse + evaluate", iterations / 10, rounds, f -> Recursive_Descent.evaluate(FORMULAS[f]));
+        measure("Program.evaluate()", iterations, rounds, f -> programs[f].evaluate());
+        measure("Program, caller's stack", iterations, rounds, f -> programs[f].evaluate(none, stack));
+        measure("optimized, caller's stack", iterations, rounds, f -> optimized[f].evaluate(none, stack));
+
+        ExpressionCache<Program> cache = new ExpressionCache<>(1000, Recursive_Descent::compileUnoptimized);
+        measure("ExpressionCache, all hits", iterations, rounds, f -> cache.get(FORMULAS[f]).evaluate(none, stack));
+
+        // 4000 distinct formulas, skewed towards the first few hundred, through a 1000-entry cache
+        String[] skewed = new String[4000];
+        for (int i = 0; i < skewed.length; i++) skewed[i] = FORMULAS[i % FORMULAS.length] + " + " + i;
+        Random random = new Random(1);
+        int[] picks = new int[1 << 16];
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] = (int) Math.min(skewed.length - 1, Math.abs(random.nextGaussian()) * 500);
+        }
+        ExpressionCache<Program> bounded = new ExpressionCache<>(1000, Recursive_Descent::compileUnoptimized);
+        int[] next = {0};
+        measure("ExpressionCache, skewed", iterations / 10, rounds,
+                f -> bounded.get(skewed[picks[next[0]++ & (picks.length - 1)]]).evaluate(none, stack));
+        System.out.println(bounded + String.format(", hit rate %.1f%%", bounded.hitRate() * 100));
+    }
+}
@@ -0,0 +1,114 @@
+package parser.expr;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Thread-safe LRU cache from expression source text to its compiled form,
+ * e.g. new ExpressionCache<>(10_000, Recursive_Descent::compile).
+ *
+ * Entries are bounded by total weight, which is 1 per entry unless a weigher
+ * is given. Lookups take one short lock on an access-ordered LinkedHashMap;
+ * compiling a miss happens outside the lock, so a slow compile never blocks
+ * hits. Two threads missing on the same text at once may both compile it;
+ * the first to finish wins and the other result is dropped.
+ */
+public final class ExpressionCache<V> {
+    private final Function<String, V> compiler;
+    private final ToIntFunction<V> weigher;
+    private final long maxWeight;
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ExpressionCache(int maxEntries, Function<String, V> compiler) {
+        this(maxEntries, compiler, value -> 1);
+    }
+
+    public ExpressionCache(long maxWeight, Function<String, V> compiler, ToIntFunction<V> weigher) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        this.compiler = compiler;
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+    }
+
+    // The cached compiled form of source, compiling it on a miss; compile errors are not cached
+    public V get(String source) {
+        synchronized (this) {
+            V value = entries.get(source);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+        V compiled = compiler.apply(source);
+        int cost = weigher.applyAsInt(compiled);
+        synchronized (this) {
+            V raced = entries.get(source);
+            if (raced != null) return raced;
+            // Heavier than the whole cache: hand it out without keeping it
+            if (cost > maxWeight) return compiled;
+            entries.put(source, compiled);
+            weight += cost;
+            Iterator<Map.Entry<String, V>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight) {
+                V evicted = eldest.next().getValue();
+                eldest.remove();
+                weight -= weigher.applyAsInt(evicted);
+                evictions++;
+            }
+        }
+        return compiled;
+    }
+
+    public synchronized void invalidate(String source) {
+        V removed = entries.remove(source);
+        if (removed != null) weight -= weigher.applyAsInt(removed);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ExpressionCache[size=%d, weight=%d/%d, hits=%d, misses=%d, evictions=%d]",
+                entries.size(), weight, maxWeight, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,100 @@
+package parser.expr;
+
+import scanner.TokenType;
+
+/**
+ * Binary operators of some token enum with their precedence and
+ * associativity, looked up by token ordinal for precedence climbing.
+ * Higher precedence binds tighter; 0 means "not a binary operator".
+ *
+ * A climbing loop parses an operand, then while the next token has
+ * precedence(type) >= its minimum, consumes it and parses the right operand
+ * with minimum rightMinimum(type). After a non-associative operator it must
+ * stop at any operator of the same precedence, and so must every enclosing
+ * call whose right operand ended in one: a && b < c < d is rejected too, so
+ * each call hands the level it stopped at back to its caller.
+ */
+public final class OperatorTable<E extends Enum<E>> {
+    public enum Associativity { LEFT, RIGHT, NONE }
+
+    public static final OperatorTable<TokenType> MINI_C = new OperatorTable<>(TokenType.class)
+            .left(1, TokenType.AND, TokenType.OR)
+            .nonAssociative(2, TokenType.LT, TokenType.GT, TokenType.EQ)
+            .left(3, TokenType.PLUS, TokenType.MINUS)
+            .left(4, TokenType.MULTIPLY);
+
+    private final E[] constants;
+    private final int[] precedence;
+    private final Associativity[] associativity;
+
+    public OperatorTable(Class<E> type) {
+        constants = type.getEnumConstants();
+        precedence = new int[constants.length];
+        associativity = new Associativity[constants.length];
+    }
+
+    @SafeVarargs
+    public final OperatorTable<E> left(int precedence, E... operators) {
+        for (E operator : operators) add(precedence, Associativity.LEFT, operator);
+        return this;
+    }
+
+    @SafeVarargs
+    public final OperatorTable<E> right(int precedence, E... operators) {
+        for (E operator : operators) add(precedence, Associativity.RIGHT, operator);
+        return this;
+    }
+
+    @SafeVarargs
+    public final OperatorTable<E> nonAssociative(int precedence, E... operators) {
+        for (E operator : operators) add(precedence, Associativity.NONE, operator);
+        return this;
+    }
+
+    private void add(int level, Associativity assoc, E operator) {
+        if (level <= 0) throw new IllegalArgumentException("Precedence must be positive: " + level);
+        precedence[operator.ordinal()] = level;
+        associativity[operator.ordinal()] = assoc;
+    }
+
+    public int precedence(int ordinal) {
+        return ordinal >= 0 && ordinal < precedence.length ? precedence[ordinal] : 0;
+    }
+
+    public int precedence(E operator) {
+        return precedence[operator.ordinal()];
+    }
+
+    public Associativity associativity(E operator) {
+        return associativity[operator.ordinal()];
+    }
+
+    public boolean isNonAssociative(int ordinal) {
+        return precedence(ordinal) > 0 && associativity[ordinal] == Associativity.NONE;
+    }
+
+    // Minimum precedence for the right operand of this operator
+    public int rightMinimum(int ordinal) {
+        int level = precedence[ordinal];
+        return associativity[ordinal] == Associativity.RIGHT ? level : level + 1;
+    }
+
+    // Ordinals (below 64) of the operators with from <= precedence < to, as a bitmask
+    public long mask(int from, int to) {
+        long mask = 0;
+        for (int i = 0; i < precedence.length && i < 64; i++) {
+            if (precedence[i] >= from && precedence[i] < to) mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    public int maxPrecedence() {
+        int max = 0;
+        for (int level : precedence) max = Math.max(max, level);
+        return max;
+    }
+
+    public E operator(int ordinal) {
+        return constants[ordinal];
+    }
+}
@@ -0,0 +1,191 @@
+package parser.expr;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rewrites a Program so it does no more work per evaluation than it has to:
+ * constant subtrees are folded, operands that cannot change the result are
+ * dropped, and equal subexpressions are computed once and reused through a
+ * temporary.
+ *
+ * Only identities that hold for every double, including -0.0, NaN and the
+ * infinities, are applied: x * 1, 1 * x, x / 1, x - 0 and x + -0.0. x + 0 is
+ * kept since -0.0 + 0 is +0.0, and x * 0 since it is NaN for infinite x.
+ * Folding uses the same double arithmetic as evaluation, so results are
+ * bit-identical.
+ */
+public final class Optimizer {
+    private static final long ONE = Double.doubleToRawLongBits(1.0);
+    private static final long ZERO = Double.doubleToRawLongBits(0.0);
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+    // The expression as a DAG: one node per distinct (op, left, right)
+    private int[] op = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private double[] value = new double[16];
+    private int count;
+    private final Map<Long, Integer> nodes = new HashMap<>();
+    private final Map<Long, Integer> constantNodes = new HashMap<>();
+    private int[] uses;
+    private int[] temp;
+    private int temps;
+    private String[] variables;
+
+    private Optimizer() {
+    }
+
+    public static Program optimize(Program program) {
+        return new Optimizer().run(program);
+    }
+
+    private Program run(Program program) {
+        int[] code = program.code;
+        int[] stack = new int[program.maxStack];
+        int[] stored = new int[program.temps];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; ) {
+            int instruction = code[pc++];
+            switch (instruction) {
+                case Program.CONST:
+                    stack[sp++] = constant(program.constants[code[pc++]]);
+                    break;
+                case Program.LOAD:
+                    // Leaves are keyed apart from binary nodes by an opcode that never has operands
+                    stack[sp++] = node(Program.LOAD, code[pc++], 0);
+                    break;
+                case Program.STORE:
+                    stored[code[pc++]] = stack[sp - 1];
+                    break;
+                case Program.FETCH:
+                    stack[sp++] = stored[code[pc++]];
+                    break;
+                default:
+                    sp--;
+                    stack[sp - 1] = binary(instruction, stack[sp - 1], stack[sp]);
+            }
+        }
+        int root = stack[0];
+
+        // Children are created before their parents, so one backward pass counts every use
+        uses = new int[count];
+        uses[root] = 1;
+        for (int n = count - 1; n >= 0; n--) {
+            if (uses[n] > 0 && isBinary(n)) {
+                uses[left[n]]++;
+                uses[right[n]]++;
+            }
+        }
+        temp = new int[count];
+        Arrays.fill(temp, -1);
+
+        Program.Builder builder = new Program.Builder();
+        for (String name : program.variables) builder.variable(name);
+        variables = program.variables;
+        emit(builder, root);
+        return builder.build();
+    }
+
+    // Shared binary nodes are computed once, stored, and fetched at later uses
+    private void emit(Program.Builder builder, int n) {
+        switch (op[n]) {
+            case Program.CONST:
+                builder.constant(value[n]);
+                return;
+            case Program.LOAD:
+                builder.load(variables[left[n]]);
+                return;
+            default:
+                if (temp[n] >= 0) {
+                    builder.fetch(temp[n]);
+                    return;
+                }
+                emit(builder, left[n]);
+                emit(builder, right[n]);
+                builder.binary(op[n]);
+                if (uses[n] > 1) builder.store(temp[n] = temps++);
+        }
+    }
+
+    private boolean isBinary(int n) {
+        return op[n] >= Program.ADD;
+    }
+
+    // Keyed like the Builder's constant pool, so every NaN is one node
+    private int constant(double v) {
+        long bits = Double.doubleToLongBits(v);
+        Integer existing = constantNodes.get(bits);
+        if (existing != null) return existing;
+        int n = allocate(Program.CONST, 0, 0);
+        value[n] = v;
+        constantNodes.put(bits, n);
+        return n;
+    }
+
+    private int binary(int instruction, int a, int b) {
+        if (op[a] == Program.CONST && op[b] == Program.CONST) {
+            return constant(apply(instruction, value[a], value[b]));
+        }
+        long bitsA = op[a] == Program.CONST ? Double.doubleToRawLongBits(value[a]) : 0;
+        long bitsB = op[b] == Program.CONST ? Double.doubleToRawLongBits(value[b]) : 0;
+        boolean constantB = op[b] == Program.CONST;
+        switch (instruction) {
+            case Program.ADD:
+                if (constantB && bitsB == NEGATIVE_ZERO) return a;
+                if (op[a] == Program.CONST && bitsA == NEGATIVE_ZERO) return b;
+                break;
+            case Program.SUB:
+                if (constantB && bitsB == ZERO) return a;
+                break;
+            case Program.MUL:
+                if (constantB && bitsB == ONE) return a;
+                if (op[a] == Program.CONST && bitsA == ONE) return b;
+                break;
+            case Program.DIV:
+                if (constantB && bitsB == ONE) return a;
+                break;
+        }
+        // Addition and multiplication commute exactly, so a + b and b + a share a node
+        if ((instruction == Program.ADD || instruction == Program.MUL) && a > b) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        return node(instruction, a, b);
+    }
+
+    private static double apply(int instruction, double a, double b) {
+        switch (instruction) {
+            case Program.ADD: return a + b;
+            case Program.SUB: return a - b;
+            case Program.MUL: return a * b;
+            case Program.DIV: return a / b;
+            default: throw new IllegalStateException("Bad opcode " + instruction);
+        }
+    }
+
+    private int node(int instruction, int a, int b) {
+        long key = (long) instruction << 58 | (long) a << 29 | b;
+        Integer existing = nodes.get(key);
+        if (existing != null) return existing;
+        int n = allocate(instruction, a, b);
+        nodes.put(key, n);
+        return n;
+    }
+
+    private int allocate(int instruction, int a, int b) {
+        if (count == op.length) {
+            int size = count * 2;
+            op = Arrays.copyOf(op, size);
+            left = Arrays.copyOf(left, size);
+            right = Arrays.copyOf(right, size);
+            value = Arrays.copyOf(value, size);
+        }
+        op[count] = instruction;
+        left[count] = a;
+        right[count] = b;
+        return count++;
+    }
+}
@@ -0,0 +1,239 @@
+package parser.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled arithmetic expression: an int opcode array with inline operands,
+ * a constant pool and named variable slots, run by a loop over a primitive
+ * double stack. Temporaries hold values the Optimizer found shared between
+ * subexpressions; they live in the stack array above the stack proper.
+ * Immutable, so one Program can be evaluated from any number of
+ * threads.
+ */
+public final class Program implements CompiledExpression {
+    // Opcodes; CONST, LOAD, STORE and FETCH take one operand, the index that follows them
+    public static final int CONST = 0;
+    public static final int LOAD = 1;
+    public static final int ADD = 2;
+    public static final int SUB = 3;
+    public static final int MUL = 4;
+    public static final int DIV = 5;
+    // Copies the top of the stack into a temporary, leaving it on the stack
+    public static final int STORE = 6;
+    // Pushes a temporary
+    public static final int FETCH = 7;
+
+    private static final String[] NAMES = {"CONST", "LOAD", "ADD", "SUB", "MUL", "DIV", "STORE", "FETCH"};
+    private static final double[] NO_VARIABLES = new double[0];
+
+    final int[] code;
+    final double[] constants;
+    final String[] variables;
+    final int maxStack;
+    final int temps;
+
+    Program(int[] code, double[] constants, String[] variables, int maxStack, int temps) {
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+        this.temps = temps;
+    }
+
+    public double evaluate() {
+        return evaluate(NO_VARIABLES);
+    }
+
+    // Variable values by slot, see variable(int)
+    @Override
+    public double evaluate(double[] values) {
+        return evaluate(values, new double[maxStack + temps]);
+    }
+
+    // With a caller-owned stack of at least maxStack() slots, nothing is allocated
+    public double evaluate(double[] values, double[] stack) {
+        final int[] code = this.code;
+        final double[] constants = this.constants;
+        final int tempBase = maxStack; // temporaries sit above the operand stack
+        int sp = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case CONST:
+                    stack[sp++] = constants[code[pc++]];
+                    break;
+                case LOAD:
+                    stack[sp++] = values[code[pc++]];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case DIV:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case STORE:
+                    stack[tempBase + code[pc++]] = stack[sp - 1];
+                    break;
+                case FETCH:
+                    stack[sp++] = stack[tempBase + code[pc++]];
+                    break;
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+        return stack[0];
+    }
+
+    // Scratch slots evaluate(values, stack) needs: the stack proper plus temporaries
+    public int maxStack() {
+        return maxStack + temps;
+    }
+
+    public int tempCount() {
+        return temps;
+    }
+
+    public int variableCount() {
+        return variables.length;
+    }
+
+    public String variable(int slot) {
+        return variables[slot];
+    }
+
+    // Slot of a variable, or -1 if the expression does not use it
+    public int slot(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    // Instruction words, a rough measure of size for cache weighing
+    public int codeLength() {
+        return code.length;
+    }
+
+    public int[] code() {
+        return code.clone();
+    }
+
+    public double[] constants() {
+        return constants.clone();
+    }
+
+    // One instruction per line, e.g. "3: CONST 2.0"
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; ) {
+            int op = code[pc];
+            sb.append(pc).append(": ").append(NAMES[op]);
+            pc++;
+            if (op == CONST) sb.append(' ').append(constants[code[pc++]]);
+            if (op == LOAD) sb.append(' ').append(variables[code[pc++]]);
+            if (op == STORE || op == FETCH) sb.append(" t").append(code[pc++]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Emits postfix code for a Program, tracking the stack depth as it goes.
+     * Constants and variables are pooled by value and name.
+     */
+    public static final class Builder {
+        private int[] code = new int[16];
+        private int length;
+        private int depth;
+        private int maxStack;
+        private int temps;
+        private final List<Double> constants = new ArrayList<>();
+        private final Map<Double, Integer> constantSlots = new HashMap<>();
+        private final List<String> variables = new ArrayList<>();
+        private final Map<String, Integer> variableSlots = new HashMap<>();
+
+        public Builder constant(double value) {
+            Integer slot = constantSlots.get(value);
+            if (slot == null) {
+                slot = constants.size();
+                constants.add(value);
+                constantSlots.put(value, slot);
+            }
+            emit(CONST, slot);
+            return push();
+        }
+
+        public Builder load(String name) {
+            emit(LOAD, variable(name));
+            return push();
+        }
+
+        // Reserves a slot for name even if it is never loaded, so callers can fix the slot order
+        public int variable(String name) {
+            Integer slot = variableSlots.get(name);
+            if (slot == null) {
+                slot = variables.size();
+                variables.add(name);
+                variableSlots.put(name, slot);
+            }
+            return slot;
+        }
+
+        // ADD, SUB, MUL or DIV
+        public Builder binary(int op) {
+            if (op < ADD || op > DIV) throw new IllegalArgumentException("Not a binary opcode: " + op);
+            if (depth < 2) throw new IllegalStateException("Binary operator needs two operands");
+            emit(op);
+            depth--;
+            return this;
+        }
+
+        // Copies the top of the stack into temporary temp, leaving it in place
+        public Builder store(int temp) {
+            if (temp < 0) throw new IllegalArgumentException("Bad temporary " + temp);
+            if (depth < 1) throw new IllegalStateException("Nothing to store");
+            emit(STORE, temp);
+            temps = Math.max(temps, temp + 1);
+            return this;
+        }
+
+        // Pushes temporary temp, which an earlier store must have set
+        public Builder fetch(int temp) {
+            if (temp < 0 || temp >= temps) throw new IllegalArgumentException("Temporary t" + temp + " is never stored");
+            emit(FETCH, temp);
+            return push();
+        }
+
+        public Program build() {
+            if (depth != 1) throw new IllegalStateException("Expression leaves " + depth + " values on the stack");
+            double[] pool = new double[constants.size()];
+            for (int i = 0; i < pool.length; i++) pool[i] = constants.get(i);
+            return new Program(Arrays.copyOf(code, length), pool, variables.toArray(new String[0]), maxStack, temps);
+        }
+
+        private Builder push() {
+            maxStack = Math.max(maxStack, ++depth);
+            return this;
+        }
+
+        private void emit(int... words) {
+            if (length + words.length > code.length) code = Arrays.copyOf(code, code.length * 2 + words.length);
+            for (int word : words) code[length++] = word;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package parser.expr;
+
+import parser.ll1.LL1Parser;
+
+import java.util.Random;
+
+/**
+ * Evaluations per second of expressions with variables through the Program
+ * interpreter, the BytecodeCompiler class, and a TieredExpression that
+ * starts interpreted and promotes itself.
+ */
+public class TierBenchmark {
+    static final String[] FORMULAS = {
+            "a + b * 2",
+            "a * (b + c) / 4 - d * d",
+            "((a + 1) * (b - 2) / (c + 3) - (d - 4) * a) / (b * b + c * c + 1) + d / 2",
+    };
+
+    // rows[f] holds bindings of a..d laid out by the slots of formula f
+    static void measure(String name, int iterations, int rounds, CompiledExpression[] expressions, double[][][] rows) {
+        long best = Long.MAX_VALUE;
+        double sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int f = i % expressions.length;
+                sink += expressions[f].evaluate(rows[f][i & (rows[f].length - 1)]);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %8.1f ns/eval %10.2f M evals/s   (%s)%n",
+                name, (double) best / iterations, iterations * 1e3 / best, sink == 0 ? "" : "ok");
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rounds = 5;
+
+        Program[] programs = new Program[FORMULAS.length];
+        CompiledExpression[] generated = new CompiledExpression[FORMULAS.length];
+        CompiledExpression[] tiered = new CompiledExpression[FORMULAS.length];
+        for (int i = 0; i < FORMULAS.length; i++) {
+            programs[i] = LL1Parser.compile(FORMULAS[i]);
+            generated[i] = BytecodeCompiler.compile(programs[i]);
+            tiered[i] = new TieredExpression(programs[i]);
+        }
+        Random random = new Random(1);
+        double[][][] rows = new double[FORMULAS.length][1024][];
+        for (int r = 0; r < 1024; r++) {
+            double[] abcd = {random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100};
+            for (int i = 0; i < FORMULAS.length; i++) {
+                double[] values = new double[programs[i].variableCount()];
+                for (int v = 0; v < values.length; v++) values[v] = abcd[programs[i].variable(v).charAt(0) - 'a'];
+                rows[i][r] = values;
+                if (programs[i].evaluate(values) != generated[i].evaluate(values)) {
+                    throw new IllegalStateException("Generated code disagrees on " + FORMULAS[i]);
+                }
+            }
+        }
+
+        measure("Program (interpreted)", iterations, rounds, programs, rows);
+        measure("BytecodeCompiler", iterations, rounds, generated, rows);
+        measure("TieredExpression", iterations, rounds, tiered, rows);
+    }
+}
@@ -0,0 +1,57 @@
+package parser.expr;
+
+/**
+ * Interprets a Program until it has been evaluated a given number of times,
+ * then swaps in the BytecodeCompiler version, so only expressions that turn
+ * out to be hot pay for class generation. If the Program is too large for a
+ * class file it stays interpreted.
+ *
+ * Safe to share between threads. The counter is racy on purpose: lost
+ * updates only delay promotion, and two threads may both compile, in which
+ * case one generated class is simply dropped.
+ */
+public final class TieredExpression implements CompiledExpression {
+    public static final int DEFAULT_THRESHOLD = 10_000;
+
+    private final Program program;
+    private final int threshold;
+    private int invocations;
+    // A generated class has no fields, so publishing it through a plain field is safe
+    private CompiledExpression compiled;
+
+    public TieredExpression(Program program) {
+        this(program, DEFAULT_THRESHOLD);
+    }
+
+    // threshold 0 compiles on the first evaluation
+    public TieredExpression(Program program, int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("threshold must not be negative: " + threshold);
+        this.program = program;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public double evaluate(double[] values) {
+        CompiledExpression current = compiled;
+        if (current != null) return current.evaluate(values);
+        if (invocations++ >= threshold) promote();
+        return program.evaluate(values);
+    }
+
+    private void promote() {
+        try {
+            compiled = BytecodeCompiler.compile(program);
+        } catch (IllegalArgumentException e) {
+            // Too large to generate; keep interpreting and stop counting
+            compiled = program;
+        }
+    }
+
+    public boolean isCompiled() {
+        return compiled != null && compiled != program;
+    }
+
+    public Program program() {
+        return program;
+    }
+}
@@ -0,0 +1,62 @@
+package parser.ir;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Loop iterations and instructions per second for the scanner.Main sample
+ * with its while bound raised, plus a loop doing mixed int and float work.
+ * Also reports how much run() allocated, which should be nothing.
+ */
+public class IrBenchmark {
+    static void measure(String name, String source, long iterations, int rounds) {
+        IrProgram program = IrCompiler.compile(source);
+        RegisterMachine machine = new RegisterMachine(program);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long best = Long.MAX_VALUE;
+        long steps = 0;
+        long allocated = 0;
+        for (int r = 0; r < rounds; r++) {
+            machine.reset();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            steps = machine.run();
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        }
+        System.out.printf("%-22s %8.1f M iterations/s %8.1f M instructions/s %6d bytes allocated%n",
+                name, iterations * 1e3 / best, steps * 1e3 / best, allocated);
+    }
+
+    public static void main(String[] args) {
+        int bound = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        int rounds = 5;
+
+        measure("while (count < N)", ""
+                + "int count = 0;\n"
+                + "float price = 10.5;\n"
+                + "char grade = 'A';\n"
+                + "if (count < 5 && price > 10.0) {\n"
+                + "   count = count + 1;\n"
+                + "   if (grade == 'A' || count == 1) {\n"
+                + "      price = price * 1.5;\n"
+                + "   } else {\n"
+                + "      price = price - 1.0;\n"
+                + "   }\n"
+                + "}\n"
+                + "while (count < " + bound + ") {\n"
+                + "   count = count + 1;\n"
+                + "}", bound, rounds);
+
+        measure("mixed loop body", ""
+                + "int count = 0;\n"
+                + "int even = 0;\n"
+                + "float total = 0.0;\n"
+                + "char grade = 'A';\n"
+                + "while (count < " + bound / 10 + ") {\n"
+                + "   int half = count * 5;\n"
+                + "   if (half < 100 || grade == 'B' && total > 1.0) even = even + 1;\n"
+                + "   else total = total + count * 0.5 - half;\n"
+                + "   count = count + 1;\n"
+                + "}", bound / 10, rounds);
+    }
+}
@@ -0,0 +1,430 @@
+package parser.ir;
+
+import parser.ast.Ast;
+import parser.ast.AstParser;
+import parser.ast.NodeKind;
+import parser.semantic.SemanticAnalyzer;
+import parser.semantic.Semantics;
+import parser.semantic.Type;
+import scanner.TokenBuffer;
+import scanner.TokenType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles a checked Ast to an IrProgram. Variables live in fixed registers,
+ * so x = x + 1 is a single IADD and constants are registers too. Conditions
+ * compile to compare-and-jump instructions with && and || short-circuiting
+ * through jumps, never through a bool value. While loops test at the
+ * bottom, so each iteration costs one conditional jump.
+ *
+ * Temporaries are handed out stack-wise and freed after each statement.
+ * Left operand chains such as a + b + c + ... are compiled in a loop rather
+ * than by recursion, since they make the deepest trees.
+ */
+public class IrCompiler {
+    // Operands are numbered variables first, then these bases, until relocate() lays out the files
+    private static final int TEMP = 1 << 28;
+    private static final int CONSTANT = 1 << 29;
+
+    private final Ast ast;
+    private final TokenBuffer tokens;
+    private final Semantics semantics;
+
+    private int[] code = new int[64];
+    private int length;
+    private int[] labels = new int[16];
+    private int labelCount;
+    private int[] jumps = new int[16];
+    private int jumpCount;
+
+    private final int[] registers;
+    private int intVariables;
+    private int floatVariables;
+    private int intTemps, floatTemps;
+    private int maxIntTemps, maxFloatTemps;
+    private final Map<Integer, Integer> intConstants = new HashMap<>();
+    private final Map<Integer, Integer> floatConstants = new HashMap<>();
+    private int[] intValues = new int[16];
+    private float[] floatValues = new float[16];
+
+    public IrCompiler(Semantics semantics) {
+        if (semantics.hasErrors()) {
+            throw new IllegalArgumentException("Cannot compile a program with errors: " + String.join("; ", semantics.errors()));
+        }
+        this.semantics = semantics;
+        this.ast = semantics.ast();
+        this.tokens = ast.tokens();
+        registers = new int[semantics.slotCount()];
+        for (int slot = 0; slot < registers.length; slot++) {
+            registers[slot] = semantics.slotType(slot) == Type.FLOAT ? floatVariables++ : intVariables++;
+        }
+    }
+
+    // Lexes, parses, checks and compiles mini-C source
+    public static IrProgram compile(String source) {
+        Ast ast = new AstParser(TokenBuffer.lex(source)).parse();
+        return new IrCompiler(SemanticAnalyzer.analyze(ast)).compile();
+    }
+
+    public IrProgram compile() {
+        for (int c = ast.firstChild(ast.root()); c >= 0; c = ast.nextSibling(c)) statement(c);
+        return relocate();
+    }
+
+    private void statement(int node) {
+        switch (ast.nodeKind(node)) {
+            case DECLARATION: {
+                int slot = semantics.slot(node);
+                int value = ast.firstChild(node);
+                // A declaration without initializer zeroes its variable each time it runs
+                if (value >= 0) {
+                    into(value, registers[slot], semantics.slotType(slot));
+                } else if (semantics.slotType(slot) == Type.FLOAT) {
+                    emit(IrProgram.FMOV, registers[slot], floatConstant(0), 0);
+                } else {
+                    emit(IrProgram.IMOV, registers[slot], intConstant(0), 0);
+                }
+                break;
+            }
+            case ASSIGNMENT: {
+                int slot = semantics.slot(node);
+                into(ast.firstChild(node), registers[slot], semantics.slotType(slot));
+                break;
+            }
+            case IF: {
+                int condition = ast.firstChild(node);
+                int then = ast.nextSibling(condition);
+                int otherwise = ast.nextSibling(then);
+                int skip = label();
+                branch(condition, false, skip);
+                freeTemps();
+                statement(then);
+                if (otherwise < 0) {
+                    place(skip);
+                } else {
+                    int end = label();
+                    jump(IrProgram.JMP, 0, 0, end);
+                    place(skip);
+                    statement(otherwise);
+                    place(end);
+                }
+                return;
+            }
+            case WHILE: {
+                int condition = ast.firstChild(node);
+                int test = label();
+                int body = label();
+                jump(IrProgram.JMP, 0, 0, test);
+                place(body);
+                statement(ast.nextSibling(condition));
+                place(test);
+                branch(condition, true, body);
+                break;
+            }
+            case BLOCK:
+                for (int c = ast.firstChild(node); c >= 0; c = ast.nextSibling(c)) statement(c);
+                return;
+            default:
+                throw new IllegalStateException("Not a statement: " + ast.nodeKind(node));
+        }
+        freeTemps();
+    }
+
+    // Evaluates node into register dst of the given type's file
+    private void into(int node, int dst, Type target) {
+        Type type = semantics.type(node);
+        if (target == Type.FLOAT && type != Type.FLOAT) {
+            if (ast.nodeKind(node) == NodeKind.LITERAL) {
+                emit(IrProgram.FMOV, dst, floatConstant(intLiteral(node)), 0);
+            } else {
+                emit(IrProgram.I2F, dst, value(node, -1), 0);
+            }
+        } else if (ast.nodeKind(node) == NodeKind.BINARY) {
+            value(node, dst);
+        } else {
+            int source = value(node, -1);
+            if (source != dst) emit(target == Type.FLOAT ? IrProgram.FMOV : IrProgram.IMOV, dst, source, 0);
+        }
+    }
+
+    /**
+     * Register holding the value of an int, char or float expression, in the
+     * file its type lives in. Names and literals need no code; arithmetic
+     * writes dst if it is not -1, else a temporary.
+     */
+    private int value(int node, int dst) {
+        switch (ast.nodeKind(node)) {
+            case NAME:
+                return registers[semantics.slot(node)];
+            case LITERAL:
+                return semantics.type(node) == Type.FLOAT
+                        ? floatConstant(Float.parseFloat(tokens.value(ast.token(node)).toString()))
+                        : intConstant(intLiteral(node));
+            case BINARY:
+                return arithmetic(node, dst);
+            default:
+                throw new IllegalStateException("Not a value: " + ast.nodeKind(node));
+        }
+    }
+
+    private int arithmetic(int node, int dst) {
+        int depth = 0;
+        for (int n = node; ast.nodeKind(n) == NodeKind.BINARY; n = ast.firstChild(n)) depth++;
+        int[] spine = new int[depth];
+        int base = node;
+        for (int i = 0; i < depth; i++) {
+            spine[i] = base;
+            base = ast.firstChild(base);
+        }
+
+        Type accumulatedType = semantics.type(base);
+        int accumulated = value(base, -1);
+        int intAccumulator = -1;
+        int floatAccumulator = -1;
+        for (int i = depth - 1; i >= 0; i--) {
+            int n = spine[i];
+            boolean isFloat = semantics.type(n) == Type.FLOAT;
+            int target = dst;
+            if (i > 0 || dst < 0) {
+                if (isFloat && floatAccumulator < 0) floatAccumulator = floatTemp();
+                if (!isFloat && intAccumulator < 0) intAccumulator = intTemp();
+                target = isFloat ? floatAccumulator : intAccumulator;
+            }
+            if (isFloat && accumulatedType != Type.FLOAT) {
+                if (floatAccumulator < 0) floatAccumulator = floatTemp();
+                emit(IrProgram.I2F, floatAccumulator, accumulated, 0);
+                accumulated = floatAccumulator;
+            }
+            int intMark = intTemps, floatMark = floatTemps;
+            int right = isFloat ? floatValue(ast.nextSibling(ast.firstChild(n))) : value(ast.nextSibling(ast.firstChild(n)), -1);
+            emit(operation(tokens.tokenType(ast.token(n)), isFloat), target, accumulated, right);
+            intTemps = intMark;
+            floatTemps = floatMark;
+            accumulated = target;
+            accumulatedType = semantics.type(n);
+        }
+        return accumulated;
+    }
+
+    private static int operation(TokenType operator, boolean isFloat) {
+        switch (operator) {
+            case PLUS: return isFloat ? IrProgram.FADD : IrProgram.IADD;
+            case MINUS: return isFloat ? IrProgram.FSUB : IrProgram.ISUB;
+            case MULTIPLY: return isFloat ? IrProgram.FMUL : IrProgram.IMUL;
+            default: throw new IllegalStateException("Not arithmetic: " + operator);
+        }
+    }
+
+    // Float register holding node's value, converting an int or char
+    private int floatValue(int node) {
+        if (semantics.type(node) == Type.FLOAT) return value(node, -1);
+        if (ast.nodeKind(node) == NodeKind.LITERAL) return floatConstant(intLiteral(node));
+        int source = value(node, -1);
+        int temp = floatTemp();
+        emit(IrProgram.I2F, temp, source, 0);
+        return temp;
+    }
+
+    // Jumps to label if the condition at node is when, else falls through
+    private void branch(int node, boolean when, int label) {
+        if (ast.nodeKind(node) != NodeKind.BINARY) {
+            jump(when ? IrProgram.IJNE : IrProgram.IJEQ, value(node, -1), intConstant(0), label);
+            return;
+        }
+        TokenType operator = tokens.tokenType(ast.token(node));
+        int left = ast.firstChild(node);
+        int right = ast.nextSibling(left);
+        switch (operator) {
+            case AND:
+            case OR: {
+                // a && b && c is a left chain; walk it as a list of operands
+                int count = 1;
+                for (int n = node; isOperator(n, operator); n = ast.firstChild(n)) count++;
+                int[] operands = new int[count];
+                int n = node;
+                for (int i = count - 1; i > 0; i--) {
+                    operands[i] = ast.nextSibling(ast.firstChild(n));
+                    n = ast.firstChild(n);
+                }
+                operands[0] = n;
+                // Every operand but the last can decide the outcome: false for &&, true for ||
+                boolean decides = operator == TokenType.OR;
+                int exit = decides == when ? label : label();
+                for (int i = 0; i < count - 1; i++) branch(operands[i], decides, exit);
+                branch(operands[count - 1], when, label);
+                if (exit != label) place(exit);
+                return;
+            }
+            case LT:
+            case GT:
+            case EQ: {
+                boolean isFloat = semantics.type(left) == Type.FLOAT || semantics.type(right) == Type.FLOAT;
+                int a = isFloat ? floatValue(left) : value(left, -1);
+                int b = isFloat ? floatValue(right) : value(right, -1);
+                jump(comparison(operator, when, isFloat), a, b, label);
+                return;
+            }
+            default:
+                jump(when ? IrProgram.IJNE : IrProgram.IJEQ, value(node, -1), intConstant(0), label);
+        }
+    }
+
+    private boolean isOperator(int node, TokenType operator) {
+        return ast.nodeKind(node) == NodeKind.BINARY && tokens.tokenType(ast.token(node)) == operator;
+    }
+
+    private static int comparison(TokenType operator, boolean when, boolean isFloat) {
+        switch (operator) {
+            case LT:
+                if (isFloat) return when ? IrProgram.FJLT : IrProgram.FJNLT;
+                return when ? IrProgram.IJLT : IrProgram.IJGE;
+            case GT:
+                if (isFloat) return when ? IrProgram.FJGT : IrProgram.FJNGT;
+                return when ? IrProgram.IJGT : IrProgram.IJLE;
+            default:
+                if (isFloat) return when ? IrProgram.FJEQ : IrProgram.FJNE;
+                return when ? IrProgram.IJEQ : IrProgram.IJNE;
+        }
+    }
+
+    private int intLiteral(int node) {
+        int token = ast.token(node);
+        CharSequence text = tokens.value(token);
+        if (tokens.tokenType(token) == TokenType.CHAR_LITERAL) return text.length() == 0 ? 0 : text.charAt(0);
+        try {
+            return Integer.parseInt(text.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Integer literal " + text + " out of range" + tokens.where(token));
+        }
+    }
+
+    private int intConstant(int value) {
+        Integer index = intConstants.get(value);
+        if (index == null) {
+            index = intConstants.size();
+            if (index == intValues.length) intValues = Arrays.copyOf(intValues, index * 2);
+            intValues[index] = value;
+            intConstants.put(value, index);
+        }
+        return CONSTANT + index;
+    }
+
+    private int floatConstant(float value) {
+        Integer index = floatConstants.get(Float.floatToIntBits(value));
+        if (index == null) {
+            index = floatConstants.size();
+            if (index == floatValues.length) floatValues = Arrays.copyOf(floatValues, index * 2);
+            floatValues[index] = value;
+            floatConstants.put(Float.floatToIntBits(value), index);
+        }
+        return CONSTANT + index;
+    }
+
+    private int intTemp() {
+        maxIntTemps = Math.max(maxIntTemps, intTemps + 1);
+        return TEMP + intTemps++;
+    }
+
+    private int floatTemp() {
+        maxFloatTemps = Math.max(maxFloatTemps, floatTemps + 1);
+        return TEMP + floatTemps++;
+    }
+
+    private void freeTemps() {
+        intTemps = 0;
+        floatTemps = 0;
+    }
+
+    private int label() {
+        if (labelCount == labels.length) labels = Arrays.copyOf(labels, labelCount * 2);
+        labels[labelCount] = -1;
+        return labelCount++;
+    }
+
+    private void place(int label) {
+        labels[label] = length;
+    }
+
+    // Jumps carry a label until relocate() patches in its address
+    private void jump(int op, int a, int b, int label) {
+        if (jumpCount == jumps.length) jumps = Arrays.copyOf(jumps, jumpCount * 2);
+        jumps[jumpCount++] = length;
+        emit(op, a, b, label);
+    }
+
+    private void emit(int op, int a, int b, int c) {
+        if (length + 4 > code.length) code = Arrays.copyOf(code, code.length * 2);
+        code[length++] = op;
+        code[length++] = a;
+        code[length++] = b;
+        code[length++] = c;
+    }
+
+    // Lays out each file as variables, constants, temporaries and resolves jump labels
+    private IrProgram relocate() {
+        int[] program = Arrays.copyOf(code, length);
+        for (int pc = 0; pc < length; pc += 4) {
+            int op = program[pc];
+            boolean isInt = op == IrProgram.IMOV || op >= IrProgram.IADD && op <= IrProgram.IMUL
+                    || op >= IrProgram.IJLT && op <= IrProgram.IJNE;
+            if (op == IrProgram.I2F) {
+                program[pc + 1] = register(program[pc + 1], false);
+                program[pc + 2] = register(program[pc + 2], true);
+            } else if (op != IrProgram.JMP) {
+                int words = op == IrProgram.IMOV || op == IrProgram.FMOV || op >= IrProgram.JMP ? 2 : 3;
+                for (int w = 1; w <= words; w++) program[pc + w] = register(program[pc + w], isInt);
+            }
+        }
+        for (int j = 0; j < jumpCount; j++) program[jumps[j] + 3] = labels[program[jumps[j] + 3]];
+
+        int[] ints = new int[intVariables + intConstants.size() + maxIntTemps];
+        System.arraycopy(intValues, 0, ints, intVariables, intConstants.size());
+        float[] floats = new float[floatVariables + floatConstants.size() + maxFloatTemps];
+        System.arraycopy(floatValues, 0, floats, floatVariables, floatConstants.size());
+
+        int slots = semantics.slotCount();
+        String[] names = new String[slots];
+        Type[] types = new Type[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            names[slot] = semantics.slotName(slot);
+            types[slot] = semantics.slotType(slot);
+        }
+        return new IrProgram(program, ints, floats, names, types, registers.clone());
+    }
+
+    private int register(int operand, boolean isInt) {
+        int variables = isInt ? intVariables : floatVariables;
+        int constants = isInt ? intConstants.size() : floatConstants.size();
+        if (operand >= CONSTANT) return variables + operand - CONSTANT;
+        if (operand >= TEMP) return variables + constants + operand - TEMP;
+        return operand;
+    }
+
+    public static void main(String[] args) {
+        String program = ""
+                + "int count = 0;\n"
+                + "float price = 10.5;\n"
+                + "char grade = 'A';\n"
+                + "\n"
+                + "if (count < 5 && price > 10.0) {\n"
+                + "   count = count + 1;\n"
+                + "   if (grade == 'A' || count == 1) {\n"
+                + "      price = price * 1.5;\n"
+                + "   } else {\n"
+                + "      price = price - 1.0;\n"
+                + "   }\n"
+                + "}\n"
+                + "while (count < 10) {\n"
+                + "   count = count + 1;\n"
+                + "}";
+        IrProgram ir = compile(program);
+        System.out.print(ir);
+        RegisterMachine machine = new RegisterMachine(ir);
+        long steps = machine.run();
+        System.out.print("\n" + machine);
+        System.out.println(steps + " instructions executed");
+    }
+}
@@ -0,0 +1,124 @@
+package parser.ir;
+
+import parser.semantic.Type;
+
+/**
+ * Register code for a mini-C program, made by IrCompiler and run by
+ * RegisterMachine. There are two register files: ints, which hold int, char
+ * and bool values, and floats. Each file starts with the variables, then the
+ * constants the code reads, then temporaries.
+ *
+ * Every instruction is four ints, op a b c. Arithmetic writes register a
+ * from b and c; a conditional jump compares a with b and goes to the
+ * instruction at word c; JMP goes to c unconditionally.
+ */
+public final class IrProgram {
+    public static final int IMOV = 0;   // ints[a] = ints[b]
+    public static final int FMOV = 1;   // floats[a] = floats[b]
+    public static final int I2F = 2;    // floats[a] = ints[b]
+    public static final int IADD = 3;
+    public static final int ISUB = 4;
+    public static final int IMUL = 5;
+    public static final int FADD = 6;
+    public static final int FSUB = 7;
+    public static final int FMUL = 8;
+    public static final int JMP = 9;
+    // Jump if ints[a] op ints[b]
+    public static final int IJLT = 10;
+    public static final int IJGE = 11;
+    public static final int IJGT = 12;
+    public static final int IJLE = 13;
+    public static final int IJEQ = 14;
+    public static final int IJNE = 15;
+    // Jump if floats[a] op floats[b]; the negated forms also jump on NaN
+    public static final int FJLT = 16;
+    public static final int FJNLT = 17;
+    public static final int FJGT = 18;
+    public static final int FJNGT = 19;
+    public static final int FJEQ = 20;
+    public static final int FJNE = 21;
+
+    static final String[] NAMES = {
+            "IMOV", "FMOV", "I2F", "IADD", "ISUB", "IMUL", "FADD", "FSUB", "FMUL", "JMP",
+            "IJLT", "IJGE", "IJGT", "IJLE", "IJEQ", "IJNE", "FJLT", "FJNLT", "FJGT", "FJNGT", "FJEQ", "FJNE"};
+
+    final int[] code;
+    // Register files as they are before the first instruction: variables 0, constants set
+    final int[] ints;
+    final float[] floats;
+    final String[] names;
+    final Type[] types;
+    final int[] registers;
+
+    IrProgram(int[] code, int[] ints, float[] floats, String[] names, Type[] types, int[] registers) {
+        this.code = code;
+        this.ints = ints;
+        this.floats = floats;
+        this.names = names;
+        this.types = types;
+        this.registers = registers;
+    }
+
+    public int instructionCount() {
+        return code.length / 4;
+    }
+
+    public int intRegisters() {
+        return ints.length;
+    }
+
+    public int floatRegisters() {
+        return floats.length;
+    }
+
+    // Variables are the semantic analyzer's slots, see parser.semantic.Semantics
+    public int variableCount() {
+        return names.length;
+    }
+
+    public String variable(int slot) {
+        return names[slot];
+    }
+
+    public Type type(int slot) {
+        return types[slot];
+    }
+
+    // Register of a variable in the file its type lives in
+    public int register(int slot) {
+        return registers[slot];
+    }
+
+    /**
+     * One instruction per line with its word address, e.g.
+     * "8: IJLT i0 i3 -> 4". Registers are i or f plus their index.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += 4) {
+            int op = code[pc];
+            sb.append(pc).append(": ").append(NAMES[op]);
+            switch (op) {
+                case JMP:
+                    break;
+                case IMOV:
+                    sb.append(" i").append(code[pc + 1]).append(" i").append(code[pc + 2]);
+                    break;
+                case FMOV:
+                    sb.append(" f").append(code[pc + 1]).append(" f").append(code[pc + 2]);
+                    break;
+                case I2F:
+                    sb.append(" f").append(code[pc + 1]).append(" i").append(code[pc + 2]);
+                    break;
+                default:
+                    char file = op >= FJLT || (op >= FADD && op <= FMUL) ? 'f' : 'i';
+                    sb.append(' ').append(file).append(code[pc + 1]).append(' ').append(file).append(code[pc + 2]);
+                    if (op < JMP) sb.append(' ').append(file).append(code[pc + 3]);
+            }
+            if (op >= JMP) sb.append(" -> ").append(code[pc + 3]);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package parser.ir;
+
+import parser.semantic.Type;
+
+/**
+ * Runs an IrProgram over its own register files. run() allocates nothing,
+ * so a machine can be reset and rerun as often as needed; it is not
+ * thread-safe, but any number of machines can share one program.
+ */
+public final class RegisterMachine {
+    private final IrProgram program;
+    private final int[] ints;
+    private final float[] floats;
+
+    public RegisterMachine(IrProgram program) {
+        this.program = program;
+        this.ints = program.ints.clone();
+        this.floats = program.floats.clone();
+    }
+
+    // Puts every variable back to 0 for another run
+    public void reset() {
+        System.arraycopy(program.ints, 0, ints, 0, ints.length);
+        System.arraycopy(program.floats, 0, floats, 0, floats.length);
+    }
+
+    // Runs to the end of the program; returns the number of instructions executed
+    public long run() {
+        final int[] code = program.code;
+        final int[] ints = this.ints;
+        final float[] floats = this.floats;
+        long steps = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            steps++;
+            switch (code[pc]) {
+                case IrProgram.IMOV:
+                    ints[code[pc + 1]] = ints[code[pc + 2]];
+                    pc += 4;
+                    break;
+                case IrProgram.FMOV:
+                    floats[code[pc + 1]] = floats[code[pc + 2]];
+                    pc += 4;
+                    break;
+                case IrProgram.I2F:
+                    floats[code[pc + 1]] = ints[code[pc + 2]];
+                    pc += 4;
+                    break;
+                case IrProgram.IADD:
+                    ints[code[pc + 1]] = ints[code[pc + 2]] + ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.ISUB:
+                    ints[code[pc + 1]] = ints[code[pc + 2]] - ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.IMUL:
+                    ints[code[pc + 1]] = ints[code[pc + 2]] * ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.FADD:
+                    floats[code[pc + 1]] = floats[code[pc + 2]] + floats[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.FSUB:
+                    floats[code[pc + 1]] = floats[code[pc + 2]] - floats[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.FMUL:
+                    floats[code[pc + 1]] = floats[code[pc + 2]] * floats[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IrProgram.JMP:
+                    pc = code[pc + 3];
+                    break;
+                case IrProgram.IJLT:
+                    pc = ints[code[pc + 1]] < ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.IJGE:
+                    pc = ints[code[pc + 1]] >= ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.IJGT:
+                    pc = ints[code[pc + 1]] > ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.IJLE:
+                    pc = ints[code[pc + 1]] <= ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.IJEQ:
+                    pc = ints[code[pc + 1]] == ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.IJNE:
+                    pc = ints[code[pc + 1]] != ints[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJLT:
+                    pc = floats[code[pc + 1]] < floats[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJNLT:
+                    pc = !(floats[code[pc + 1]] < floats[code[pc + 2]]) ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJGT:
+                    pc = floats[code[pc + 1]] > floats[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJNGT:
+                    pc = !(floats[code[pc + 1]] > floats[code[pc + 2]]) ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJEQ:
+                    pc = floats[code[pc + 1]] == floats[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IrProgram.FJNE:
+                    pc = floats[code[pc + 1]] != floats[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+            }
+        }
+        return steps;
+    }
+
+    public IrProgram program() {
+        return program;
+    }
+
+    public int intValue(int slot) {
+        if (program.types[slot] == Type.FLOAT) throw new IllegalArgumentException(program.names[slot] + " is a float");
+        return ints[program.registers[slot]];
+    }
+
+    public float floatValue(int slot) {
+        if (program.types[slot] != Type.FLOAT) throw new IllegalArgumentException(program.names[slot] + " is not a float");
+        return floats[program.registers[slot]];
+    }
+
+    // Current value of a variable, e.g. "12", "10.5" or "A"
+    public String value(int slot) {
+        switch (program.types[slot]) {
+            case FLOAT: return String.valueOf(floatValue(slot));
+            case CHAR: return String.valueOf((char) intValue(slot));
+            default: return String.valueOf(intValue(slot));
+        }
+    }
+
+    // One "type name = value" line per variable
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int slot = 0; slot < program.variableCount(); slot++) {
+            sb.append(program.types[slot]).append(' ').append(program.names[slot]).append(" = ").append(value(slot)).append('\n');
+        }
+        return sb.toString();
+    }
+}
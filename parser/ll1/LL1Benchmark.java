@@ -0,0 +1,81 @@
+package parser.ll1;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Parse rate of the recursive Parser and the TableDrivenParser with tracing
+ * off, into a ring buffer, and streamed to a file.
+ */
+public class LL1Benchmark {
+
+    // A random expression of about the given number of tokens, nesting at most depth parentheses
+    static String expression(Random random, int tokens, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int open = 0;
+        int written = 0;
+        while (true) {
+            while (open < depth && random.nextInt(4) == 0) {
+                sb.append('(');
+                open++;
+            }
+            sb.append(random.nextBoolean() ? String.valueOf(random.nextInt(1000)) : "x");
+            written++;
+            while (open > 0 && random.nextInt(3) == 0) {
+                sb.append(')');
+                open--;
+            }
+            if (written >= tokens / 2) break;
+            sb.append("+-*/".charAt(random.nextInt(4)));
+        }
+        while (open-- > 0) sb.append(')');
+        return sb.toString();
+    }
+
+    static void measure(String name, List<List<Token>> inputs, long tokens, int rounds, Consumer<List<Token>> parse) {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < rounds; r++) {
+            long start = System.nanoTime();
+            for (List<Token> input : inputs) parse.accept(input);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-38s %8.1f ms %8.2f M tokens/s%n", name, best / 1e6, tokens * 1e3 / best);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Random random = new Random(42);
+        List<List<Token>> inputs = new ArrayList<>();
+        long tokens = 0;
+        for (int i = 0; i < 2000; i++) {
+            List<Token> list = new Lexer(expression(random, 500, 20)).tokenize();
+            inputs.add(list);
+            tokens += list.size();
+        }
+        System.out.printf("%d expressions, %d tokens, best of %d rounds%n", inputs.size(), tokens, rounds);
+
+        LL1Table table = LL1Grammar.expressions().compile();
+        RingBufferTrace ring = new RingBufferTrace(1024);
+        Path file = Files.createTempFile("ll1-trace", ".txt");
+        try (StreamTrace stream = StreamTrace.toFile(file, Parser.PRODUCTIONS)) {
+            for (TraceListener trace : new TraceListener[]{TraceListener.NONE, ring, stream}) {
+                String mode = trace == TraceListener.NONE ? "off" : trace == ring ? "ring buffer" : "file";
+                measure("Parser, trace " + mode, inputs, tokens, rounds, input -> {
+                    Parser parser = new Parser(input);
+                    parser.setTrace(trace);
+                    parser.parse();
+                });
+                TableDrivenParser tableParser = new TableDrivenParser(table);
+                tableParser.setTrace(trace);
+                measure("TableDrivenParser, trace " + mode, inputs, tokens, rounds, tableParser::parse);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
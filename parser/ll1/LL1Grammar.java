@@ -0,0 +1,173 @@
+package parser.ll1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A grammar for the table-driven LL(1) engine. Right-hand sides name either
+ * nonterminals (anything used as a left-hand side) or TokenType terminals;
+ * an empty right-hand side is epsilon. The first rule's left-hand side is the
+ * start symbol.
+ */
+public class LL1Grammar {
+    private final List<String> lhs = new ArrayList<>();
+    private final List<String[]> rhs = new ArrayList<>();
+
+    public LL1Grammar rule(String left, String... right) {
+        lhs.add(left);
+        rhs.add(right.clone());
+        return this;
+    }
+
+    // The grammar Parser implements by hand
+    public static LL1Grammar expressions() {
+        return new LL1Grammar()
+                .rule("E", "T", "E'")
+                .rule("E'", "PLUS", "T", "E'")
+                .rule("E'", "MINUS", "T", "E'")
+                .rule("E'")
+                .rule("T", "F", "T'")
+                .rule("T'", "MULTIPLY", "F", "T'")
+                .rule("T'", "DIVIDE", "F", "T'")
+                .rule("T'")
+                .rule("F", "LPAREN", "E", "RPAREN")
+                .rule("F", "ID")
+                .rule("F", "NUMBER");
+    }
+
+    /**
+     * Computes FIRST and FOLLOW and fills the parse table. Throws with every
+     * conflicting cell listed if the grammar is not LL(1).
+     */
+    public LL1Table compile() {
+        if (lhs.isEmpty()) throw new IllegalStateException("Grammar has no rules");
+        TokenType[] terminals = TokenType.values();
+        int eof = TokenType.EOF.ordinal();
+
+        List<String> names = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        for (String name : lhs) {
+            if (!ids.containsKey(name)) {
+                ids.put(name, names.size());
+                names.add(name);
+            }
+        }
+
+        // Symbols: terminal ordinal >= 0, nonterminal A as ~A
+        int[][] productions = new int[lhs.size()][];
+        for (int p = 0; p < productions.length; p++) {
+            String[] right = rhs.get(p);
+            productions[p] = new int[right.length];
+            for (int k = 0; k < right.length; k++) {
+                Integer id = ids.get(right[k]);
+                productions[p][k] = id != null ? ~id : terminal(right[k]);
+            }
+        }
+        int[] left = new int[productions.length];
+        for (int p = 0; p < left.length; p++) left[p] = ids.get(lhs.get(p));
+
+        // FIRST as terminal bitmasks, to a fixed point
+        int count = names.size();
+        boolean[] nullable = new boolean[count];
+        long[] first = new long[count];
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int p = 0; p < productions.length; p++) {
+                int a = left[p];
+                long before = first[a];
+                boolean allNullable = true;
+                for (int symbol : productions[p]) {
+                    if (symbol >= 0) {
+                        first[a] |= 1L << symbol;
+                        allNullable = false;
+                        break;
+                    }
+                    first[a] |= first[~symbol];
+                    if (!nullable[~symbol]) {
+                        allNullable = false;
+                        break;
+                    }
+                }
+                if (allNullable && !nullable[a]) nullable[a] = changed = true;
+                if (first[a] != before) changed = true;
+            }
+        }
+
+        long[] follow = new long[count];
+        follow[0] = 1L << eof;
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int p = 0; p < productions.length; p++) {
+                // Walk right to left carrying FIRST of the rest of the rule
+                long rest = follow[left[p]];
+                for (int k = productions[p].length - 1; k >= 0; k--) {
+                    int symbol = productions[p][k];
+                    if (symbol >= 0) {
+                        rest = 1L << symbol;
+                        continue;
+                    }
+                    long before = follow[~symbol];
+                    follow[~symbol] |= rest;
+                    if (follow[~symbol] != before) changed = true;
+                    rest = nullable[~symbol] ? rest | first[~symbol] : first[~symbol];
+                }
+            }
+        }
+
+        int[][] table = new int[count][terminals.length];
+        for (int[] row : table) Arrays.fill(row, -1);
+        List<String> conflicts = new ArrayList<>();
+        for (int p = 0; p < productions.length; p++) {
+            long predict = 0;
+            boolean allNullable = true;
+            for (int symbol : productions[p]) {
+                if (symbol >= 0) {
+                    predict |= 1L << symbol;
+                    allNullable = false;
+                    break;
+                }
+                predict |= first[~symbol];
+                if (!nullable[~symbol]) {
+                    allNullable = false;
+                    break;
+                }
+            }
+            if (allNullable) predict |= follow[left[p]];
+            for (int t = 0; t < terminals.length; t++) {
+                if ((predict & (1L << t)) == 0) continue;
+                int existing = table[left[p]][t];
+                if (existing >= 0) {
+                    conflicts.add(names.get(left[p]) + " on " + terminals[t] + ": "
+                            + describe(existing) + " / " + describe(p));
+                } else {
+                    table[left[p]][t] = p;
+                }
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new IllegalArgumentException("Grammar is not LL(1): " + String.join("; ", conflicts));
+        }
+
+        String[] descriptions = new String[productions.length];
+        for (int p = 0; p < productions.length; p++) descriptions[p] = describe(p);
+        return new LL1Table(names.toArray(new String[0]), left, productions, descriptions, table, first, follow, nullable);
+    }
+
+    private static int terminal(String name) {
+        try {
+            return TokenType.valueOf(name).ordinal();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown symbol " + name);
+        }
+    }
+
+    private String describe(int p) {
+        StringBuilder sb = new StringBuilder(lhs.get(p)).append(" ->");
+        if (rhs.get(p).length == 0) sb.append(" epsilon");
+        for (String symbol : rhs.get(p)) sb.append(' ').append(symbol);
+        return sb.toString();
+    }
+}
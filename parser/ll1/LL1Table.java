@@ -0,0 +1,95 @@
+package parser.ll1;
+
+/**
+ * A compiled LL(1) grammar: productions as int symbol arrays (a terminal is
+ * its TokenType ordinal, nonterminal A is ~A) and the dense parse table
+ * table[A][terminal] giving the production to expand, or -1. Immutable, so
+ * one table can serve any number of parsers.
+ */
+public class LL1Table {
+    private final String[] names;
+    private final int[] left;
+    private final int[][] productions;
+    private final String[] descriptions;
+    private final int[][] table;
+    private final long[] first;
+    private final long[] follow;
+    private final boolean[] nullable;
+
+    // Right-hand sides reversed into one array, ready to push
+    final int[] pushStart;
+    final int[] pushSymbols;
+
+    LL1Table(String[] names, int[] left, int[][] productions, String[] descriptions,
+             int[][] table, long[] first, long[] follow, boolean[] nullable) {
+        this.names = names;
+        this.left = left;
+        this.productions = productions;
+        this.descriptions = descriptions;
+        this.table = table;
+        this.first = first;
+        this.follow = follow;
+        this.nullable = nullable;
+
+        pushStart = new int[productions.length + 1];
+        for (int p = 0; p < productions.length; p++) pushStart[p + 1] = pushStart[p] + productions[p].length;
+        pushSymbols = new int[pushStart[productions.length]];
+        for (int p = 0; p < productions.length; p++) {
+            for (int k = 0; k < productions[p].length; k++) {
+                pushSymbols[pushStart[p + 1] - 1 - k] = productions[p][k];
+            }
+        }
+    }
+
+    public int nonTerminalCount() {
+        return names.length;
+    }
+
+    public String name(int nonTerminal) {
+        return names[nonTerminal];
+    }
+
+    public int productionCount() {
+        return productions.length;
+    }
+
+    public int left(int production) {
+        return left[production];
+    }
+
+    // E' -> + T E' style text of a production
+    public String describe(int production) {
+        return descriptions[production];
+    }
+
+    public int production(int nonTerminal, int terminal) {
+        return table[nonTerminal][terminal];
+    }
+
+    final int[] row(int nonTerminal) {
+        return table[nonTerminal];
+    }
+
+    // FIRST and FOLLOW as bitmasks of TokenType ordinals
+    public long first(int nonTerminal) {
+        return first[nonTerminal];
+    }
+
+    public long follow(int nonTerminal) {
+        return follow[nonTerminal];
+    }
+
+    public boolean nullable(int nonTerminal) {
+        return nullable[nonTerminal];
+    }
+
+    public String describeSet(long terminals) {
+        StringBuilder sb = new StringBuilder("{");
+        for (TokenType type : TokenType.values()) {
+            if ((terminals & (1L << type.ordinal())) == 0) continue;
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(type);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,52 @@
+package parser.ll1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Lexer {
+    private final String input;
+    private int pos = 0;
+
+    public Lexer(String input) {
+        this.input = input.replaceAll("\\s+", ""); // Remove whitespace
+    }
+
+    public List<Token> tokenize() {
+        List<Token> tokens = new ArrayList<>();
+
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+
+            if (Character.isDigit(c)) {
+                // Handle Numbers
+                StringBuilder sb = new StringBuilder();
+                while (pos < input.length() && Character.isDigit(input.charAt(pos))) {
+                    sb.append(input.charAt(pos));
+                    pos++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, sb.toString()));
+            } else if (Character.isLetter(c)) {
+                // Handle IDs (Variables)
+                StringBuilder sb = new StringBuilder();
+                while (pos < input.length() && Character.isLetter(input.charAt(pos))) {
+                    sb.append(input.charAt(pos));
+                    pos++;
+                }
+                tokens.add(new Token(TokenType.ID, sb.toString()));
+            } else {
+                switch (c) {
+                    case '+': tokens.add(new Token(TokenType.PLUS, "+")); break;
+                    case '-': tokens.add(new Token(TokenType.MINUS, "-")); break;
+                    case '*': tokens.add(new Token(TokenType.MULTIPLY, "*")); break;
+                    case '/': tokens.add(new Token(TokenType.DIVIDE, "/")); break;
+                    case '(': tokens.add(new Token(TokenType.LPAREN, "(")); break;
+                    case ')': tokens.add(new Token(TokenType.RPAREN, ")")); break;
+                    default: throw new RuntimeException("Unknown character: " + c);
+                }
+                pos++;
+            }
+        }
+        tokens.add(new Token(TokenType.EOF, ""));
+        return tokens;
+    }
+}
@@ -0,0 +1,150 @@
+package parser.ll1;
+
+import parser.expr.Program;
+
+import java.util.List;
+
+class Parser {
+    // Production ids, numbered as in LL1Grammar.expressions()
+    static final String[] PRODUCTIONS = {
+            "E -> T E'",
+            "E' -> + T E'", "E' -> - T E'", "E' -> epsilon",
+            "T -> F T'",
+            "T' -> * F T'", "T' -> / F T'", "T' -> epsilon",
+            "F -> ( E )", "F -> id", "F -> num"
+    };
+    private static final int E = 0, E_PLUS = 1, E_MINUS = 2, E_EMPTY = 3, T = 4,
+            T_MULTIPLY = 5, T_DIVIDE = 6, T_EMPTY = 7, F_PAREN = 8, F_ID = 9, F_NUM = 10;
+
+    private final List<Token> tokens;
+    private int current = 0;
+    private TraceListener trace = TraceListener.NONE;
+    // Set only while compile() runs; parse() emits nothing
+    private Program.Builder code;
+
+    public Parser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    public void setTrace(TraceListener trace) {
+        this.trace = trace;
+    }
+
+    private void trace(int production) {
+        if (trace != TraceListener.NONE) trace.production(production);
+    }
+
+    private void trace(int production, String lexeme) {
+        if (trace != TraceListener.NONE) trace.production(production, lexeme);
+    }
+
+    private Token peek() {
+        return tokens.get(current);
+    }
+
+    private Token consume() {
+        if (!isAtEnd()) current++;
+        return tokens.get(current - 1);
+    }
+
+    private boolean isAtEnd() {
+        return peek().type == TokenType.EOF;
+    }
+
+    public void parse() {
+        E();
+        if (!isAtEnd()) {
+            throw new RuntimeException("Error: Unexpected input at end. Expected EOF.");
+        }
+    }
+
+    // Parses as parse() does, emitting postfix code with one variable slot per distinct id
+    public Program compile() {
+        code = new Program.Builder();
+        try {
+            parse();
+            return code.build();
+        } finally {
+            code = null;
+        }
+    }
+
+    private void emit(int op) {
+        if (code != null) code.binary(op);
+    }
+
+    // E -> T E'
+    private void E() {
+        trace(E);
+        T();
+        EPrime();
+    }
+
+    // E' -> + T E' | - T E' | epsilon
+    private void EPrime() {
+        if (peek().type == TokenType.PLUS) {
+            trace(E_PLUS);
+            consume();
+            T();
+            emit(Program.ADD);
+            EPrime();
+        } else if (peek().type == TokenType.MINUS) {
+            trace(E_MINUS);
+            consume();
+            T();
+            emit(Program.SUB);
+            EPrime();
+        } else {
+            trace(E_EMPTY);
+        }
+    }
+
+    // T -> F T'
+    private void T() {
+        trace(T);
+        F();
+        TPrime();
+    }
+
+    // T' -> * F T' | / F T' | epsilon
+    private void TPrime() {
+        if (peek().type == TokenType.MULTIPLY) {
+            trace(T_MULTIPLY);
+            consume();
+            F();
+            emit(Program.MUL);
+            TPrime();
+        } else if (peek().type == TokenType.DIVIDE) {
+            trace(T_DIVIDE);
+            consume();
+            F();
+            emit(Program.DIV);
+            TPrime();
+        } else {
+            trace(T_EMPTY);
+        }
+    }
+
+    // F -> ( E ) | id | num
+    private void F() {
+        if (peek().type == TokenType.LPAREN) {
+            trace(F_PAREN);
+            consume();
+            E();
+            if (peek().type != TokenType.RPAREN) {
+                throw new RuntimeException("Error: Expected ')'");
+            }
+            consume();
+        } else if (peek().type == TokenType.ID) {
+            trace(F_ID, peek().lexeme);
+            Token id = consume();
+            if (code != null) code.load(id.lexeme);
+        } else if (peek().type == TokenType.NUMBER) {
+            trace(F_NUM, peek().lexeme);
+            Token number = consume();
+            if (code != null) code.constant(Double.parseDouble(number.lexeme));
+        } else {
+            throw new RuntimeException("Error: Unexpected token " + peek().type + " in Factor");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package parser.ll1;
+
+/**
+ * Keeps the last capacity production ids in a ring of ints, for looking at
+ * how a parse ended without paying for the whole derivation.
+ */
+public class RingBufferTrace implements TraceListener {
+    private final int[] ring;
+    private final int mask;
+    private long total;
+
+    public RingBufferTrace(int capacity) {
+        // Rounded up to a power of two so the index is a mask
+        int size = Integer.highestOneBit(Math.max(1, capacity));
+        ring = new int[size < capacity ? size << 1 : size];
+        mask = ring.length - 1;
+    }
+
+    @Override
+    public void production(int production) {
+        ring[(int) total & mask] = production;
+        total++;
+    }
+
+    // Productions seen since the last clear(), including those overwritten
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return (int) Math.min(total, ring.length);
+    }
+
+    // i-th oldest production still held
+    public int get(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("Index " + i + " of " + size());
+        return ring[(int) (total - size() + i) & mask];
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size()];
+        for (int i = 0; i < result.length; i++) result[i] = get(i);
+        return result;
+    }
+
+    public void clear() {
+        total = 0;
+    }
+}
@@ -0,0 +1,69 @@
+package parser.ll1;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes each production as a line of text, e.g. "T -> F T'" or
+ * "F -> id (a)", through a buffered writer. Close it to flush.
+ */
+public class StreamTrace implements TraceListener, Closeable {
+    private final Writer out;
+    private final String[] descriptions;
+
+    public StreamTrace(Writer out, String[] descriptions) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        this.descriptions = descriptions.clone();
+    }
+
+    public static StreamTrace toFile(Path path, String[] descriptions) throws IOException {
+        return new StreamTrace(Files.newBufferedWriter(path, StandardCharsets.UTF_8), descriptions);
+    }
+
+    // Call flush() rather than close() when done, which would close System.out
+    public static StreamTrace toConsole(String[] descriptions) {
+        return new StreamTrace(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), descriptions);
+    }
+
+    @Override
+    public void production(int production) {
+        try {
+            out.write(descriptions[production]);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void production(int production, String lexeme) {
+        try {
+            out.write(descriptions[production]);
+            out.write(" (");
+            out.write(lexeme);
+            out.write(")\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,106 @@
+package parser.ll1;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LL(1) parser driven by an LL1Table. The prediction stack is an int array,
+ * so nesting depth is bounded by memory rather than the Java call stack, and
+ * the loop itself neither recurses nor prints.
+ */
+public class TableDrivenParser {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int EOF = TokenType.EOF.ordinal();
+
+    private final LL1Table table;
+    private int[] stack = new int[64];
+    private int[] types = new int[64];
+    private TraceListener trace = TraceListener.NONE;
+
+    public TableDrivenParser(LL1Table table) {
+        this.table = table;
+    }
+
+    public void setTrace(TraceListener trace) {
+        this.trace = trace;
+    }
+
+    public void parse(String input) {
+        parse(new Lexer(input).tokenize());
+    }
+
+    public void parse(List<Token> tokens) {
+        if (types.length < tokens.size()) types = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) types[i] = tokens.get(i).type.ordinal();
+        parse(types, tokens.size());
+    }
+
+    // TokenType ordinals, ending with EOF
+    public void parse(int[] input, int n) {
+        if (n == 0 || input[n - 1] != EOF) throw new IllegalArgumentException("Input must end with EOF");
+        int[] stack = this.stack;
+        final int[] pushStart = table.pushStart;
+        final int[] pushSymbols = table.pushSymbols;
+        final TraceListener trace = this.trace;
+        final boolean tracing = trace != TraceListener.NONE;
+        int top = 0;
+        stack[top++] = EOF;
+        stack[top++] = ~0;
+        int pos = 0;
+        while (true) {
+            int symbol = stack[--top];
+            int token = input[pos];
+            if (symbol >= 0) {
+                if (symbol != token) {
+                    throw new RuntimeException("Error: Expected " + TYPES[symbol] + " but found " + TYPES[token]);
+                }
+                if (token == EOF) break;
+                pos++;
+                continue;
+            }
+            int production = table.row(~symbol)[token];
+            if (production < 0) {
+                throw new RuntimeException("Error: Unexpected token " + TYPES[token] + " in " + table.name(~symbol));
+            }
+            if (tracing) trace.production(production);
+            int from = pushStart[production];
+            int to = pushStart[production + 1];
+            if (top + (to - from) > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + (to - from)));
+                this.stack = stack;
+            }
+            for (int k = from; k < to; k++) stack[top++] = pushSymbols[k];
+        }
+    }
+
+    public static void main(String[] args) {
+        LL1Table table = LL1Grammar.expressions().compile();
+        for (int a = 0; a < table.nonTerminalCount(); a++) {
+            System.out.printf("%-3s FIRST %-40s FOLLOW %s%n", table.name(a),
+                    table.describeSet(table.first(a)), table.describeSet(table.follow(a)));
+        }
+
+        TableDrivenParser parser = new TableDrivenParser(table);
+        for (String input : new String[]{"1 + 2", "a * (b + c) / 4", "(1 + 2) * 3", "id", "1 + * 2"}) {
+            try {
+                parser.parse(input);
+                System.out.println(input + ": accepted");
+            } catch (RuntimeException e) {
+                System.out.println(input + ": " + e.getMessage());
+            }
+        }
+
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) deep.append('(');
+        deep.append('1');
+        for (int i = 0; i < 100_000; i++) deep.append(')');
+        parser.parse(deep.toString());
+        System.out.println("100000 nested parentheses: accepted");
+
+        try {
+            new LL1Grammar().rule("E", "E", "PLUS", "T").rule("E", "T").rule("T", "ID").compile();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
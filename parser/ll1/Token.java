@@ -0,0 +1,16 @@
+package parser.ll1;
+
+class Token {
+    public final TokenType type;
+    public final String lexeme;
+
+    public Token(TokenType type, String lexeme) {
+        this.type = type;
+        this.lexeme = lexeme;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + lexeme + ")";
+    }
+}
@@ -0,0 +1,5 @@
+package parser.ll1;
+
+enum TokenType {
+    NUMBER, ID, PLUS, MINUS, MULTIPLY, DIVIDE, LPAREN, RPAREN, EOF
+}
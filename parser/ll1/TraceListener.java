@@ -0,0 +1,17 @@
+package parser.ll1;
+
+/**
+ * Receives the id of every production a parser expands. Parsers compare
+ * against NONE before calling, so with tracing off the hot loop pays one
+ * predictable branch and nothing else.
+ */
+public interface TraceListener {
+    TraceListener NONE = production -> { };
+
+    void production(int production);
+
+    // Productions that consume an id or number also pass its lexeme; by default it is dropped
+    default void production(int production, String lexeme) {
+        production(production);
+    }
+}
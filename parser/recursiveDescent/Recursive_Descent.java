@@ -1,10 +1,29 @@
 package parser.recursiveDescent;
 
+import parser.expr.OperatorTable;
+import parser.expr.Optimizer;
+import parser.expr.Program;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class Recursive_Descent {
 
+    // Lexes, parses and evaluates in one pass
+    public static double evaluate(String expression) {
+        return new Parser(new Lexer(expression).tokenize()).parse();
+    }
+
+    // Lexes, parses and optimizes once; the Program can then be evaluated any number of times
+    public static Program compile(String expression) {
+        return Optimizer.optimize(compileUnoptimized(expression));
+    }
+
+    // The parser's code as emitted, one instruction per operand and operator
+    public static Program compileUnoptimized(String expression) {
+        return new Parser(new Lexer(expression).tokenize()).compile();
+    }
+
     static class Token {
         public enum Type { NUMBER, PLUS, MINUS, MUL, DIV, LPAREN, RPAREN, EOF }
 
@@ -90,42 +109,69 @@ public class Recursive_Descent {
             this.tokens = tokens;
         }
 
+        private static final OperatorTable<Token.Type> OPERATORS = new OperatorTable<>(Token.Type.class)
+                .left(1, Token.Type.PLUS, Token.Type.MINUS)
+                .left(2, Token.Type.MUL, Token.Type.DIV);
+
         public double parse() {
-            return expr();
+            return expr(1);
         }
 
-        // expr   -> term ( ( '+' | '-' ) term )*
-        private double expr() {
-            double result = term();
+        // expr -> factor ( op expr )*, climbing OPERATORS from precedence minimum up
+        private double expr(int minimum) {
+            double result = factor();
 
-            while (match(Token.Type.PLUS, Token.Type.MINUS)) {
-                Token operator = previous();
-                double right = term();
-                if (operator.type == Token.Type.PLUS) {
-                    result += right;
-                } else if (operator.type == Token.Type.MINUS) {
-                    result -= right;
+            while (OPERATORS.precedence(peek().type.ordinal()) >= minimum) {
+                Token operator = advance();
+                double right = expr(OPERATORS.rightMinimum(operator.type.ordinal()));
+                switch (operator.type) {
+                    case PLUS: result += right; break;
+                    case MINUS: result -= right; break;
+                    case MUL: result *= right; break;
+                    case DIV: result /= right; break;
+                    default: throw new RuntimeException("Unexpected operator: " + operator.type);
                 }
             }
 
             return result;
         }
 
-        // term   -> factor ( ( '*' | '/' ) factor )*
-        private double term() {
-            double result = factor();
+        // Same grammar as parse(), emitting postfix code instead of evaluating
+        public Program compile() {
+            Program.Builder code = new Program.Builder();
+            compileExpr(code, 1);
+            return code.build();
+        }
+
+        private void compileExpr(Program.Builder code, int minimum) {
+            compileFactor(code);
 
-            while (match(Token.Type.MUL, Token.Type.DIV)) {
-                Token operator = previous();
-                double right = factor();
-                if (operator.type == Token.Type.MUL) {
-                    result *= right;
-                } else if (operator.type == Token.Type.DIV) {
-                    result /= right;
+            while (OPERATORS.precedence(peek().type.ordinal()) >= minimum) {
+                Token operator = advance();
+                compileExpr(code, OPERATORS.rightMinimum(operator.type.ordinal()));
+                switch (operator.type) {
+                    case PLUS: code.binary(Program.ADD); break;
+                    case MINUS: code.binary(Program.SUB); break;
+                    case MUL: code.binary(Program.MUL); break;
+                    case DIV: code.binary(Program.DIV); break;
+                    default: throw new RuntimeException("Unexpected operator: " + operator.type);
                 }
             }
+        }
 
-            return result;
+        private void compileFactor(Program.Builder code) {
+            if (match(Token.Type.NUMBER)) {
+                code.constant(Double.parseDouble(previous().lexeme));
+                return;
+            }
+
+            if (match(Token.Type.LPAREN)) {
+                compileExpr(code, 1);
+                consume(Token.Type.RPAREN, "Expect ')' after expression.");
+                return;
+            }
+
+            throw new RuntimeException("Unexpected token: " + peek().type);
         }
 
         // factor -> NUMBER | '(' expr ')'
@@ -135,7 +181,7 @@ public class Recursive_Descent {
             }
 
             if (match(Token.Type.LPAREN)) {
-                double result = expr();
+                double result = expr(1);
                 consume(Token.Type.RPAREN, "Expect ')' after expression.");
                 return result;
             }
@@ -193,5 +239,10 @@ public class Recursive_Descent {
         double result = parser.parse();
 
         System.out.println("Result: " + result);
+
+        System.out.print("Compiled:\n" + new Parser(tokens).compile());
+        Program program = compile(expression);
+        System.out.print("Optimized:\n" + program);
+        System.out.println("Result: " + program.evaluate());
     }
 }
\ No newline at end of file
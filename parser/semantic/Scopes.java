@@ -0,0 +1,114 @@
+package parser.semantic;
+
+import java.util.Arrays;
+
+/**
+ * Nested scopes mapping interned symbol ids (see scanner.SymbolTable) to
+ * the innermost visible binding. One open-addressing table holds every
+ * symbol ever declared; a binding remembers the one it shadows, and each
+ * scope is a run on a stack of bindings, so leaving a scope restores the
+ * shadowed bindings without touching anything else. Lookups never walk the
+ * scope chain and nothing is allocated per declaration.
+ */
+public final class Scopes {
+    private int[] keys = new int[64];       // symbol id + 1, 0 = empty
+    private int[] innermost = new int[64];  // binding, -1 once its scope has closed
+    private int symbols;
+
+    // Bindings are the values callers pass to declare, e.g. slot numbers
+    private int[] bindings = new int[64];
+    private int[] bindingSymbols = new int[64];
+    private int[] shadowed = new int[64];
+    private int top;
+    private int[] scopeStarts = new int[16];
+    private int depth;
+
+    public Scopes() {
+        Arrays.fill(innermost, -1);
+    }
+
+    public void enter() {
+        if (depth == scopeStarts.length) scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        scopeStarts[depth++] = top;
+    }
+
+    public void exit() {
+        if (depth == 0) throw new IllegalStateException("No scope to exit");
+        int start = scopeStarts[--depth];
+        while (top > start) {
+            top--;
+            innermost[find(bindingSymbols[top])] = shadowed[top];
+        }
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    // The innermost binding of symbol, or -1
+    public int lookup(int symbol) {
+        int slot = find(symbol);
+        return keys[slot] == 0 ? -1 : value(innermost[slot]);
+    }
+
+    // True if symbol is declared in the innermost scope itself
+    public boolean declaredHere(int symbol) {
+        int slot = find(symbol);
+        return keys[slot] != 0 && innermost[slot] >= (depth == 0 ? 0 : scopeStarts[depth - 1]);
+    }
+
+    // Binds symbol to value in the innermost scope, shadowing any outer binding
+    public void declare(int symbol, int value) {
+        if (depth == 0) throw new IllegalStateException("No open scope");
+        int slot = find(symbol);
+        if (keys[slot] == 0) {
+            keys[slot] = symbol + 1;
+            innermost[slot] = -1;
+            if (++symbols * 2 > keys.length) {
+                rehash();
+                slot = find(symbol);
+            }
+        }
+        if (top == bindings.length) {
+            int capacity = top * 2;
+            bindings = Arrays.copyOf(bindings, capacity);
+            bindingSymbols = Arrays.copyOf(bindingSymbols, capacity);
+            shadowed = Arrays.copyOf(shadowed, capacity);
+        }
+        bindings[top] = value;
+        bindingSymbols[top] = symbol;
+        shadowed[top] = innermost[slot];
+        innermost[slot] = top++;
+    }
+
+    private int value(int binding) {
+        return binding < 0 ? -1 : bindings[binding];
+    }
+
+    // The table slot holding symbol, or the empty slot where it would go
+    private int find(int symbol) {
+        int mask = keys.length - 1;
+        int slot = mix(symbol) & mask;
+        while (keys[slot] != 0 && keys[slot] != symbol + 1) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldInnermost = innermost;
+        keys = new int[oldKeys.length * 2];
+        innermost = new int[keys.length];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = find(oldKeys[i] - 1);
+            keys[slot] = oldKeys[i];
+            innermost[slot] = oldInnermost[i];
+        }
+    }
+
+    // Symbol ids are dense, so spread them before masking
+    private static int mix(int h) {
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,282 @@
+package parser.semantic;
+
+import parser.ast.Ast;
+import parser.ast.AstParser;
+import parser.ast.NodeKind;
+import scanner.TokenBuffer;
+import scanner.TokenType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves names and checks types over an Ast from AstParser. Blocks open
+ * scopes; a declaration is visible from after its initializer to the end of
+ * its block, and may shadow an outer one but not one in the same block.
+ *
+ * Arithmetic takes int, float or char operands and yields float if either is
+ * float, else int. <, > and == compare numbers and yield bool, as do && and
+ * ||. A condition, or an operand of && or ||, may be bool, int or char but
+ * not float. Assignments and initializers allow char to int or float and int
+ * to float, nothing narrower.
+ *
+ * Errors are collected rather than thrown, so one pass reports all of them.
+ */
+public class SemanticAnalyzer {
+    private static final byte NO_TYPE = -1;
+    private static final int INT = Type.INT.ordinal();
+    private static final int FLOAT = Type.FLOAT.ordinal();
+    private static final int ERROR = Type.ERROR.ordinal();
+    private static final Type[] TYPES = Type.values();
+
+    private final Ast ast;
+    private final TokenBuffer tokens;
+    private final Scopes scopes = new Scopes();
+    private final int[] nodeSlots;
+    private final byte[] nodeTypes;
+    private int slotCount;
+    private byte[] slotTypes = new byte[64];
+    private int[] declarations = new int[64];
+    private final List<String> errors = new ArrayList<>();
+    // Post-order expression walk; BINARY chains can be as deep as they are long
+    private int[] stack = new int[64];
+
+    public SemanticAnalyzer(Ast ast) {
+        this.ast = ast;
+        this.tokens = ast.tokens();
+        nodeSlots = new int[ast.size()];
+        nodeTypes = new byte[ast.size()];
+        Arrays.fill(nodeSlots, -1);
+        Arrays.fill(nodeTypes, NO_TYPE);
+    }
+
+    public static Semantics analyze(Ast ast) {
+        return new SemanticAnalyzer(ast).analyze();
+    }
+
+    public Semantics analyze() {
+        scopes.enter();
+        children(ast.root());
+        scopes.exit();
+        return new Semantics(ast, nodeSlots, nodeTypes, slotCount, slotTypes, declarations, errors);
+    }
+
+    private void children(int node) {
+        for (int c = ast.firstChild(node); c >= 0; c = ast.nextSibling(c)) statement(c);
+    }
+
+    private void statement(int node) {
+        switch (ast.nodeKind(node)) {
+            case DECLARATION:
+                declaration(node);
+                break;
+            case ASSIGNMENT: {
+                int slot = resolve(node);
+                int value = expression(ast.firstChild(node));
+                if (slot >= 0) assign(node, slotTypes[slot], value);
+                break;
+            }
+            case IF:
+            case WHILE: {
+                int c = ast.firstChild(node);
+                condition(c);
+                for (c = ast.nextSibling(c); c >= 0; c = ast.nextSibling(c)) statement(c);
+                break;
+            }
+            case BLOCK:
+                scopes.enter();
+                children(node);
+                scopes.exit();
+                break;
+            default:
+                throw new IllegalStateException("Not a statement: " + ast.nodeKind(node));
+        }
+    }
+
+    private void declaration(int node) {
+        int name = ast.token(node);
+        int type = declaredType(tokens.tokenType(name - 1));
+        // The initializer is checked before the name is in scope, so int x = x; reads an outer x
+        int initializer = ast.firstChild(node);
+        if (initializer >= 0) assign(node, type, expression(initializer));
+        int symbol = tokens.symbol(name);
+        if (scopes.declaredHere(symbol)) {
+            error(name, value(name) + " is already declared in this scope");
+            return;
+        }
+        if (slotCount == slotTypes.length) {
+            slotTypes = Arrays.copyOf(slotTypes, slotCount * 2);
+            declarations = Arrays.copyOf(declarations, slotCount * 2);
+        }
+        slotTypes[slotCount] = (byte) type;
+        declarations[slotCount] = node;
+        nodeSlots[node] = slotCount;
+        scopes.declare(symbol, slotCount++);
+    }
+
+    private static int declaredType(TokenType keyword) {
+        switch (keyword) {
+            case INT: return Type.INT.ordinal();
+            case FLOAT: return Type.FLOAT.ordinal();
+            case CHAR: return Type.CHAR.ordinal();
+            default: throw new IllegalStateException("Not a type keyword: " + keyword);
+        }
+    }
+
+    private void assign(int node, int target, int value) {
+        if (value == ERROR || TYPES[value].assignableTo(TYPES[target])) return;
+        error(ast.token(node), "Cannot assign " + TYPES[value] + " to " + TYPES[target] + " " + value(ast.token(node)));
+    }
+
+    private void condition(int node) {
+        int type = expression(node);
+        if (type == FLOAT) error(tokenOf(node), "Condition must be bool, int or char but is float");
+    }
+
+    // Types the expression rooted at node and every node below it; returns its type ordinal
+    private int expression(int node) {
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int n = stack[top - 1];
+            if (ast.nodeKind(n) != NodeKind.BINARY) {
+                top--;
+                nodeTypes[n] = (byte) leaf(n);
+                continue;
+            }
+            int left = ast.firstChild(n);
+            int right = ast.nextSibling(left);
+            if (nodeTypes[right] == NO_TYPE) {
+                // Children first; the right is pushed last so it is checked first, but both finish before n
+                if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = left;
+                stack[top++] = right;
+                continue;
+            }
+            top--;
+            nodeTypes[n] = (byte) binary(n, nodeTypes[left], nodeTypes[right]);
+        }
+        return nodeTypes[node];
+    }
+
+    private int leaf(int node) {
+        int token = ast.token(node);
+        switch (ast.nodeKind(node)) {
+            case NAME: {
+                int slot = resolve(node);
+                return slot < 0 ? ERROR : slotTypes[slot];
+            }
+            case LITERAL:
+                switch (tokens.tokenType(token)) {
+                    case INTEGER_LITERAL: return Type.INT.ordinal();
+                    case FLOAT_LITERAL: return Type.FLOAT.ordinal();
+                    default: return Type.CHAR.ordinal();
+                }
+            default:
+                throw new IllegalStateException("Not an expression: " + ast.nodeKind(node));
+        }
+    }
+
+    private int binary(int node, int left, int right) {
+        if (left == ERROR || right == ERROR) return ERROR;
+        int token = ast.token(node);
+        TokenType operator = tokens.tokenType(token);
+        Type a = TYPES[left];
+        Type b = TYPES[right];
+        switch (operator) {
+            case AND:
+            case OR:
+                if (a == Type.FLOAT || b == Type.FLOAT) {
+                    error(token, "Operands of " + value(token) + " must be bool, int or char but are " + a + " and " + b);
+                    return ERROR;
+                }
+                return Type.BOOL.ordinal();
+            case LT:
+            case GT:
+            case EQ:
+                if (!a.isNumeric() || !b.isNumeric()) {
+                    error(token, "Operands of " + value(token) + " must be numbers but are " + a + " and " + b);
+                    return ERROR;
+                }
+                return Type.BOOL.ordinal();
+            default:
+                if (!a.isNumeric() || !b.isNumeric()) {
+                    error(token, "Operands of " + value(token) + " must be numbers but are " + a + " and " + b);
+                    return ERROR;
+                }
+                return a == Type.FLOAT || b == Type.FLOAT ? FLOAT : INT;
+        }
+    }
+
+    // Slot of the identifier at node's token, recorded on the node; -1 and an error if undeclared
+    private int resolve(int node) {
+        int token = ast.token(node);
+        int slot = scopes.lookup(tokens.symbol(token));
+        if (slot < 0) error(token, "Undeclared identifier " + value(token));
+        nodeSlots[node] = slot;
+        return slot;
+    }
+
+    // Leftmost token of an expression, for error positions
+    private int tokenOf(int node) {
+        while (ast.nodeKind(node) == NodeKind.BINARY) node = ast.firstChild(node);
+        return ast.token(node);
+    }
+
+    private CharSequence value(int token) {
+        return tokens.value(token);
+    }
+
+    private void error(int token, String message) {
+        errors.add("Semantic Error: " + message + tokens.where(token));
+    }
+
+    public static void main(String[] args) {
+        String program = ""
+                + "int count = 0;\n"
+                + "float price = 10.5;\n"
+                + "char grade = 'A';\n"
+                + "if (count < 5 && price > 10.0) {\n"
+                + "   int count = 1;\n"
+                + "   price = price * count;\n"
+                + "   count = price;\n"
+                + "}\n"
+                + "while (price) total = total + 1;\n"
+                + "int grade = 2;\n";
+        Semantics semantics = analyze(new AstParser(TokenBuffer.lex(program)).parse());
+        for (int slot = 0; slot < semantics.slotCount(); slot++) {
+            System.out.println("slot " + slot + ": " + semantics.slotType(slot) + " " + semantics.slotName(slot));
+        }
+        semantics.errors().forEach(System.out::println);
+
+        // Thousands of distinct names in nested blocks, each int reading the int declared before it
+        StringBuilder sb = new StringBuilder("int v0 = 0;\n");
+        int names = 0;
+        while (sb.length() < 8 << 20) {
+            sb.append("{\n");
+            int lastInt = 0;
+            for (int i = 0; i < 100; i++) {
+                names++;
+                if (i % 3 == 0) {
+                    sb.append("float v").append(names).append(" = v").append(lastInt).append(" * 2.5;\n");
+                } else {
+                    sb.append("int v").append(names).append(" = v").append(lastInt).append(" * 2 + ").append(i).append(";\n");
+                    lastInt = names;
+                }
+            }
+            sb.append("if (v").append(lastInt).append(" > 10) v0 = v0 + 1;\n}\n");
+        }
+        TokenBuffer tokens = TokenBuffer.lex(sb.toString());
+        Ast ast = new AstParser(tokens).parse();
+        long best = Long.MAX_VALUE;
+        Semantics result = null;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            result = analyze(ast);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%n%d nodes, %d slots, %d errors in %.1f ms, %.1f ns per node%n",
+                ast.size(), result.slotCount(), result.errors().size(), best / 1e6, (double) best / ast.size());
+    }
+}
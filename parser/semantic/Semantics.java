@@ -0,0 +1,75 @@
+package parser.semantic;
+
+import parser.ast.Ast;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What SemanticAnalyzer found out about an Ast: the variable slot of every
+ * DECLARATION, ASSIGNMENT and NAME node, the type of every expression node,
+ * and the declared type of every slot. Slots number the declarations of the
+ * program in order, so inner-scope variables get slots of their own.
+ */
+public final class Semantics {
+    private static final Type[] TYPES = Type.values();
+
+    private final Ast ast;
+    private final int[] nodeSlots;
+    private final byte[] nodeTypes;
+    private final int slotCount;
+    private final byte[] slotTypes;
+    private final int[] declarations;
+    private final List<String> errors;
+
+    Semantics(Ast ast, int[] nodeSlots, byte[] nodeTypes, int slotCount, byte[] slotTypes, int[] declarations,
+              List<String> errors) {
+        this.ast = ast;
+        this.nodeSlots = nodeSlots;
+        this.nodeTypes = nodeTypes;
+        this.slotCount = slotCount;
+        this.slotTypes = slotTypes;
+        this.declarations = declarations;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    public Ast ast() {
+        return ast;
+    }
+
+    // Slot a DECLARATION, ASSIGNMENT or NAME node refers to, or -1 if it is undeclared or another kind
+    public int slot(int node) {
+        return nodeSlots[node];
+    }
+
+    // Type of an expression node, or null for statements
+    public Type type(int node) {
+        return nodeTypes[node] < 0 ? null : TYPES[nodeTypes[node]];
+    }
+
+    public int slotCount() {
+        return slotCount;
+    }
+
+    public Type slotType(int slot) {
+        return TYPES[slotTypes[slot]];
+    }
+
+    // The DECLARATION node of a slot
+    public int declaration(int slot) {
+        return declarations[slot];
+    }
+
+    public String slotName(int slot) {
+        return ast.tokens().value(ast.token(declarations[slot])).toString();
+    }
+
+    // Semantic Error messages in source order; empty if the program checks
+    public List<String> errors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
@@ -0,0 +1,25 @@
+package parser.semantic;
+
+/**
+ * Types of mini-C values. BOOL is the type of comparisons and of && and ||;
+ * it cannot be declared. ERROR marks an expression that already failed to
+ * check, so one mistake is reported once rather than at every enclosing
+ * operator.
+ */
+public enum Type {
+    INT, FLOAT, CHAR, BOOL, ERROR;
+
+    public boolean isNumeric() {
+        return this == INT || this == FLOAT || this == CHAR;
+    }
+
+    // C's implicit conversions that lose nothing: char to int or float, int to float
+    public boolean assignableTo(Type target) {
+        return this == target || this == CHAR && (target == INT || target == FLOAT) || this == INT && target == FLOAT;
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,47 @@
+package scanner;
+
+/**
+ * Minimized lexer DFA as flat tables. State numbers are pre-multiplied by the
+ * class count, so a transition is next[state + classOf(c)]; state 0 is dead.
+ */
+public final class Dfa {
+    public static final int NO_ACCEPT = -1;
+    public static final int SKIP = -2;
+
+    // Pseudo-symbols for characters outside ASCII, classified like the hand-written scanner does
+    static final int OTHER_LETTER = 128;
+    static final int OTHER_DIGIT = 129;
+    static final int OTHER_SPACE = 130;
+    static final int OTHER = 131;
+    static final int SYMBOLS = 132;
+
+    final int[] classOf;
+    final int classes;
+    final int[] next;
+    final int[] accept;
+    final int start;
+
+    Dfa(int[] classOf, int classes, int[] next, int[] accept, int start) {
+        this.classOf = classOf;
+        this.classes = classes;
+        this.next = next;
+        this.accept = accept;
+        this.start = start;
+    }
+
+    static int symbolOf(char c) {
+        if (c < 128) return c;
+        if (Character.isLetter(c)) return OTHER_LETTER;
+        if (Character.isDigit(c)) return OTHER_DIGIT;
+        if (Character.isWhitespace(c)) return OTHER_SPACE;
+        return OTHER;
+    }
+
+    public int states() {
+        return next.length / classes;
+    }
+
+    public int classes() {
+        return classes;
+    }
+}
@@ -0,0 +1,141 @@
+package scanner;
+
+/**
+ * Table-driven replacement for Scanner over an in-memory source. Each step is
+ * one class lookup and one transition-table load; it produces exactly the
+ * token stream Scanner does.
+ */
+public class DfaScanner implements TokenSource {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final Dfa MINI_C = LexerGenerator.miniC().generate();
+
+    private final Dfa dfa;
+    private final char[] input;
+    private final int end;
+    private final SymbolTable symbols;
+    private int pos;
+    private int line = 1;
+
+    private int tokenStart;
+    private int tokenLength;
+    private int tokenLine;
+    private int tokenSymbol = -1;
+
+    public DfaScanner(String input) {
+        this(input, new SymbolTable());
+    }
+
+    public DfaScanner(String input, SymbolTable symbols) {
+        this(MINI_C, input.toCharArray(), 0, input.length(), symbols);
+    }
+
+    DfaScanner(char[] input, int start, int end, SymbolTable symbols) {
+        this(MINI_C, input, start, end, symbols);
+    }
+
+    DfaScanner(Dfa dfa, char[] input, int start, int end, SymbolTable symbols) {
+        this.dfa = dfa;
+        this.input = input;
+        this.pos = start;
+        this.end = end;
+        this.symbols = symbols;
+    }
+
+    @Override
+    public TokenType scan() {
+        final int[] classOf = dfa.classOf;
+        final int[] next = dfa.next;
+        final int[] accept = dfa.accept;
+        while (pos < end) {
+            int start = pos;
+            int state = dfa.start;
+            int result = Dfa.NO_ACCEPT;
+            int resultEnd = start;
+            int newlines = 0;
+            int resultNewlines = 0;
+
+            // Longest match: run until the dead state, remembering the last accepting position
+            for (int p = start; p < end; ) {
+                char c = input[p];
+                state = next[state + classOf[c < 128 ? c : Dfa.symbolOf(c)]];
+                if (state == 0) break;
+                p++;
+                if (c == '\n') newlines++;
+                if (accept[state] != Dfa.NO_ACCEPT) {
+                    result = accept[state];
+                    resultEnd = p;
+                    resultNewlines = newlines;
+                }
+            }
+
+            pos = resultEnd;
+            if (result == Dfa.SKIP) {
+                // Only skipped input counts lines, as in Scanner.skipWhitespace
+                line += resultNewlines;
+                continue;
+            }
+            tokenStart = start;
+            tokenLength = resultEnd - start;
+            tokenLine = line;
+            TokenType type = TYPES[result];
+            // Only identifiers are interned, as in Scanner
+            if (type == TokenType.IDENTIFIER) {
+                tokenSymbol = symbols.intern(input, start, tokenLength,
+                        SymbolTable.hash(input, start, tokenLength), type);
+            } else {
+                tokenSymbol = -1;
+            }
+            return type;
+        }
+
+        tokenStart = pos;
+        tokenLength = 0;
+        tokenLine = line;
+        tokenSymbol = -1;
+        return TokenType.EOF;
+    }
+
+    @Override
+    public Token getNextToken() {
+        TokenType type = scan();
+        switch (type) {
+            case IDENTIFIER:
+                return new Token(type, symbols.name(tokenSymbol));
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+                return new Token(type, new String(input, tokenStart, tokenLength));
+            case CHAR_LITERAL:
+                boolean hasChar = tokenLength >= 2 && input[tokenStart + 1] != '\'';
+                return new Token(type, hasChar ? String.valueOf(input[tokenStart + 1]) : "");
+            case UNKNOWN:
+                return new Token(type, String.valueOf(input[tokenStart]));
+            default:
+                return Scanner.fixedToken(type, tokenLength);
+        }
+    }
+
+    @Override
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    @Override
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    @Override
+    public int tokenLine() {
+        return tokenLine;
+    }
+
+    @Override
+    public int tokenSymbol() {
+        return tokenSymbol;
+    }
+
+    @Override
+    public SymbolTable symbols() {
+        return symbols;
+    }
+}
@@ -0,0 +1,310 @@
+package scanner;
+
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Keeps a document and its token stream up to date across edits. An edit
+ * re-scans from the end of the last token it cannot affect and stops as soon
+ * as a new token starts where an old one (past the edit) started, since the
+ * scanner is in the same state there and the rest of the stream is unchanged.
+ *
+ * Text and tokens both live in gap buffers. Tokens after the gap store their
+ * offset relative to the end of the text and their line relative to the EOF
+ * line, so edits never have to shift the tail; cost depends on the edit size
+ * and on how far the gap moves, not on the document size.
+ */
+public class IncrementalLexer {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int RESCAN_BUFFER = 256;
+
+    public static final class Change {
+        // Tokens [first, first + removed) were replaced by [first, first + inserted)
+        public final int first;
+        public final int removed;
+        public final int inserted;
+
+        Change(int first, int removed, int inserted) {
+            this.first = first;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Change[first=%d, removed=%d, inserted=%d]", first, removed, inserted);
+        }
+    }
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    private char[] text;
+    private int textGapStart;
+    private int textGapEnd;
+
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] symbolIds;
+    private int gapStart;
+    private int gapEnd;
+
+    private int textLength;
+    private int eofLine;
+
+    public IncrementalLexer(String input) {
+        text = new char[Math.max(16, input.length() * 2)];
+        input.getChars(0, input.length(), text, 0);
+        textGapStart = input.length();
+        textGapEnd = text.length;
+        textLength = input.length();
+
+        int capacity = Math.max(16, input.length() / 2);
+        types = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        symbolIds = new int[capacity];
+        gapEnd = capacity;
+
+        Scanner scanner = new Scanner(new TextReader(0), symbols);
+        TokenType type;
+        do {
+            type = scanner.scan();
+            insertAtGap(type.ordinal(), scanner.tokenStart(), scanner.tokenLength(), scanner.tokenLine(),
+                    scanner.tokenSymbol());
+        } while (type != TokenType.EOF);
+        eofLine = scanner.tokenLine();
+    }
+
+    /**
+     * Replaces removedLength chars at offset with inserted and re-lexes the
+     * damaged region. The token stream is updated in place.
+     */
+    public Change edit(int offset, int removedLength, String inserted) {
+        if (offset < 0 || removedLength < 0 || offset + removedLength > textLength) {
+            throw new IndexOutOfBoundsException("Edit outside text: " + offset + "+" + removedLength);
+        }
+        int oldTextLength = textLength;
+        int oldEofLine = eofLine;
+        int editEnd = offset + removedLength;
+        int delta = inserted.length() - removedLength;
+
+        // Tokens ending before the edit never looked at an edited char
+        int first = firstTokenEndingAtOrAfter(offset);
+        int restart = first > 0 ? start(first - 1) + length(first - 1) : 0;
+        int restartLine = first > 0 ? line(first - 1) : 1;
+        moveGap(first);
+        replaceText(offset, removedLength, inserted);
+
+        int[] fresh = new int[5 * 8];
+        int freshCount = 0;
+        int old = gapEnd;
+        Scanner scanner = new Scanner(new TextReader(restart), symbols, RESCAN_BUFFER, restart, restartLine);
+        while (true) {
+            TokenType type = scanner.scan();
+            int start = scanner.tokenStart();
+            while (old < types.length && (starts[old] + oldTextLength < editEnd
+                    || starts[old] + oldTextLength + delta < start)) {
+                old++;
+            }
+            if (old < types.length && starts[old] + oldTextLength + delta == start) {
+                // Same position in an untouched region: the rest of the stream is unchanged
+                int lineDelta = scanner.tokenLine() - (lines[old] + oldEofLine);
+                int removed = old - gapEnd;
+                gapEnd = old;
+                textLength = oldTextLength + delta;
+                eofLine = oldEofLine + lineDelta;
+                for (int i = 0; i < freshCount; i++) {
+                    int at = i * 5;
+                    insertAtGap(fresh[at], fresh[at + 1], fresh[at + 2], fresh[at + 3], fresh[at + 4]);
+                }
+                return new Change(first, removed, freshCount);
+            }
+            if ((freshCount + 1) * 5 > fresh.length) fresh = Arrays.copyOf(fresh, fresh.length * 2);
+            int at = freshCount++ * 5;
+            fresh[at] = type.ordinal();
+            fresh[at + 1] = start;
+            fresh[at + 2] = scanner.tokenLength();
+            fresh[at + 3] = scanner.tokenLine();
+            fresh[at + 4] = scanner.tokenSymbol();
+        }
+    }
+
+    public int size() {
+        return types.length - (gapEnd - gapStart);
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public int type(int i) {
+        return types[physical(i)];
+    }
+
+    public TokenType tokenType(int i) {
+        return TYPES[type(i)];
+    }
+
+    public int start(int i) {
+        int p = physical(i);
+        return p < gapStart ? starts[p] : starts[p] + textLength;
+    }
+
+    public int length(int i) {
+        return lengths[physical(i)];
+    }
+
+    public int line(int i) {
+        int p = physical(i);
+        return p < gapStart ? lines[p] : lines[p] + eofLine;
+    }
+
+    public int symbol(int i) {
+        return symbolIds[physical(i)];
+    }
+
+    public Token token(int i) {
+        TokenType type = tokenType(i);
+        int start = start(i);
+        switch (type) {
+            case IDENTIFIER:
+                return new Token(type, symbols.name(symbol(i)));
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL: {
+                StringBuilder text = new StringBuilder(length(i));
+                for (int k = start; k < start + length(i); k++) text.append(charAt(k));
+                return new Token(type, text.toString());
+            }
+            case CHAR_LITERAL:
+                boolean hasChar = length(i) >= 2 && charAt(start + 1) != '\'';
+                return new Token(type, hasChar ? String.valueOf(charAt(start + 1)) : "");
+            case UNKNOWN:
+                return new Token(type, String.valueOf(charAt(start)));
+            default:
+                return Scanner.fixedToken(type, length(i));
+        }
+    }
+
+    public int textLength() {
+        return textLength;
+    }
+
+    public char charAt(int offset) {
+        return offset < textGapStart ? text[offset] : text[offset + textGapEnd - textGapStart];
+    }
+
+    public String text() {
+        return new String(text, 0, textGapStart) + new String(text, textGapEnd, text.length - textGapEnd);
+    }
+
+    private int physical(int i) {
+        return i < gapStart ? i : i + gapEnd - gapStart;
+    }
+
+    private int firstTokenEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (start(mid) + length(mid) >= offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    // Moves the token gap so that it starts at logical index i, converting the crossed entries
+    private void moveGap(int i) {
+        while (gapStart > i) {
+            gapStart--;
+            gapEnd--;
+            types[gapEnd] = types[gapStart];
+            starts[gapEnd] = starts[gapStart] - textLength;
+            lengths[gapEnd] = lengths[gapStart];
+            lines[gapEnd] = lines[gapStart] - eofLine;
+            symbolIds[gapEnd] = symbolIds[gapStart];
+        }
+        while (gapStart < i) {
+            types[gapStart] = types[gapEnd];
+            starts[gapStart] = starts[gapEnd] + textLength;
+            lengths[gapStart] = lengths[gapEnd];
+            lines[gapStart] = lines[gapEnd] + eofLine;
+            symbolIds[gapStart] = symbolIds[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    private void insertAtGap(int type, int start, int length, int line, int symbol) {
+        if (gapStart == gapEnd) growTokens();
+        types[gapStart] = type;
+        starts[gapStart] = start;
+        lengths[gapStart] = length;
+        lines[gapStart] = line;
+        symbolIds[gapStart] = symbol;
+        gapStart++;
+    }
+
+    private void growTokens() {
+        int capacity = types.length * 2;
+        int tail = types.length - gapEnd;
+        types = grow(types, capacity, tail);
+        starts = grow(starts, capacity, tail);
+        lengths = grow(lengths, capacity, tail);
+        lines = grow(lines, capacity, tail);
+        symbolIds = grow(symbolIds, capacity, tail);
+        gapEnd = capacity - tail;
+    }
+
+    private static int[] grow(int[] array, int capacity, int tail) {
+        int[] bigger = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, bigger, capacity - tail, tail);
+        return bigger;
+    }
+
+    private void replaceText(int offset, int removedLength, String inserted) {
+        while (textGapStart > offset) text[--textGapEnd] = text[--textGapStart];
+        while (textGapStart < offset) text[textGapStart++] = text[textGapEnd++];
+        textGapEnd += removedLength;
+        if (textGapEnd - textGapStart < inserted.length()) {
+            int tail = text.length - textGapEnd;
+            int capacity = Math.max(text.length * 2, textGapStart + inserted.length() + tail);
+            char[] bigger = Arrays.copyOf(text, capacity);
+            System.arraycopy(text, textGapEnd, bigger, capacity - tail, tail);
+            text = bigger;
+            textGapEnd = capacity - tail;
+        }
+        inserted.getChars(0, inserted.length(), text, textGapStart);
+        textGapStart += inserted.length();
+    }
+
+    // Streams the current text from a logical offset, across the gap
+    private final class TextReader extends Reader {
+        private int pos;
+
+        TextReader(int pos) {
+            this.pos = pos;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            int total = text.length - (textGapEnd - textGapStart);
+            if (pos >= total) return -1;
+            int n = Math.min(len, total - pos);
+            for (int i = 0; i < n; i++) {
+                buffer[off + i] = charAt(pos + i);
+            }
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package scanner;
+
+public class IncrementalLexerBenchmark {
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int edits = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        String source = ScannerBenchmark.generateSource(megabytes << 20);
+        System.out.printf("Input: %d chars%n", source.length());
+
+        long start = System.nanoTime();
+        int tokens = TokenBuffer.lex(source).size();
+        System.out.printf("Full re-lex:        %10.3f ms (%d tokens)%n", (System.nanoTime() - start) / 1e6, tokens);
+
+        // Type and delete around a cursor in the middle of the file, like an editor session
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        int cursor = source.length() / 2;
+        long changed = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < edits; i++) {
+            IncrementalLexer.Change change = (i % 3 == 2)
+                    ? lexer.edit(cursor - 1, 1, "")
+                    : lexer.edit(cursor, 0, i % 2 == 0 ? "x" : " ");
+            cursor += (i % 3 == 2) ? -1 : 1;
+            changed += change.inserted;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("Incremental edit:   %10.3f us avg over %d edits (%.2f tokens re-lexed per edit)%n",
+                elapsed / 1e3 / edits, edits, (double) changed / edits);
+    }
+}
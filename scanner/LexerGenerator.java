@@ -0,0 +1,377 @@
+package scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a minimized DFA from token patterns: Thompson NFA, subset construction
+ * over character equivalence classes, then partition refinement. Rules added
+ * first win ties on equal match length, so keywords go before IDENTIFIER.
+ */
+public class LexerGenerator {
+
+    public abstract static class Pattern {
+        abstract int[] build(Nfa nfa);
+    }
+
+    private static final class Chars extends Pattern {
+        final BitSet set;
+
+        Chars(BitSet set) {
+            this.set = set;
+        }
+
+        @Override
+        int[] build(Nfa nfa) {
+            int from = nfa.state();
+            int to = nfa.state();
+            nfa.edge(from, set, to);
+            return new int[]{from, to};
+        }
+    }
+
+    private static final class Seq extends Pattern {
+        final Pattern[] parts;
+
+        Seq(Pattern[] parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        int[] build(Nfa nfa) {
+            int start = nfa.state();
+            int end = start;
+            for (Pattern part : parts) {
+                int[] fragment = part.build(nfa);
+                nfa.epsilon(end, fragment[0]);
+                end = fragment[1];
+            }
+            return new int[]{start, end};
+        }
+    }
+
+    private static final class Alt extends Pattern {
+        final Pattern[] choices;
+
+        Alt(Pattern[] choices) {
+            this.choices = choices;
+        }
+
+        @Override
+        int[] build(Nfa nfa) {
+            int start = nfa.state();
+            int end = nfa.state();
+            for (Pattern choice : choices) {
+                int[] fragment = choice.build(nfa);
+                nfa.epsilon(start, fragment[0]);
+                nfa.epsilon(fragment[1], end);
+            }
+            return new int[]{start, end};
+        }
+    }
+
+    private static final class Star extends Pattern {
+        final Pattern body;
+
+        Star(Pattern body) {
+            this.body = body;
+        }
+
+        @Override
+        int[] build(Nfa nfa) {
+            int start = nfa.state();
+            int end = nfa.state();
+            int[] fragment = body.build(nfa);
+            nfa.epsilon(start, fragment[0]);
+            nfa.epsilon(start, end);
+            nfa.epsilon(fragment[1], fragment[0]);
+            nfa.epsilon(fragment[1], end);
+            return new int[]{start, end};
+        }
+    }
+
+    public static final Pattern LETTER = chars(Dfa.OTHER_LETTER, c -> Character.isLetter(c));
+    public static final Pattern DIGIT = chars(Dfa.OTHER_DIGIT, c -> Character.isDigit(c));
+    public static final Pattern LETTER_OR_DIGIT = alt(LETTER, DIGIT);
+    public static final Pattern WHITESPACE = chars(Dfa.OTHER_SPACE, c -> Character.isWhitespace(c));
+    public static final Pattern ANY = anyBut();
+
+    private interface CharTest {
+        boolean test(char c);
+    }
+
+    private static Pattern chars(int otherSymbol, CharTest test) {
+        BitSet set = new BitSet(Dfa.SYMBOLS);
+        for (char c = 0; c < 128; c++) {
+            if (test.test(c)) set.set(c);
+        }
+        set.set(otherSymbol);
+        return new Chars(set);
+    }
+
+    public static Pattern anyBut(char... excluded) {
+        BitSet set = new BitSet(Dfa.SYMBOLS);
+        set.set(0, Dfa.SYMBOLS);
+        for (char c : excluded) set.clear(c);
+        return new Chars(set);
+    }
+
+    public static Pattern lit(String text) {
+        Pattern[] parts = new Pattern[text.length()];
+        for (int i = 0; i < parts.length; i++) {
+            BitSet set = new BitSet(Dfa.SYMBOLS);
+            set.set(text.charAt(i));
+            parts[i] = new Chars(set);
+        }
+        return new Seq(parts);
+    }
+
+    public static Pattern seq(Pattern... parts) {
+        return new Seq(parts);
+    }
+
+    public static Pattern alt(Pattern... choices) {
+        return new Alt(choices);
+    }
+
+    public static Pattern star(Pattern body) {
+        return new Star(body);
+    }
+
+    public static Pattern plus(Pattern body) {
+        return seq(body, star(body));
+    }
+
+    public static Pattern opt(Pattern body) {
+        return alt(body, seq());
+    }
+
+    private final List<Pattern> patterns = new ArrayList<>();
+    private final List<Integer> results = new ArrayList<>();
+
+    public LexerGenerator token(TokenType type, Pattern pattern) {
+        patterns.add(pattern);
+        results.add(type.ordinal());
+        return this;
+    }
+
+    // Input matched by a skip rule is consumed without producing a token
+    public LexerGenerator skip(Pattern pattern) {
+        patterns.add(pattern);
+        results.add(Dfa.SKIP);
+        return this;
+    }
+
+    /**
+     * The token definitions of the hand-written Scanner, including its quirks:
+     * a lone '/' is dropped, "=" and "==" are both EQ, and any other character
+     * becomes a one-character UNKNOWN token.
+     */
+    public static LexerGenerator miniC() {
+        return new LexerGenerator()
+                .skip(plus(WHITESPACE))
+                .skip(seq(lit("//"), star(anyBut('\n'))))
+                .skip(lit("/"))
+                .token(TokenType.INT, lit("int"))
+                .token(TokenType.FLOAT, lit("float"))
+                .token(TokenType.CHAR, lit("char"))
+                .token(TokenType.IF, lit("if"))
+                .token(TokenType.ELSE, lit("else"))
+                .token(TokenType.WHILE, lit("while"))
+                .token(TokenType.PLUS, lit("+"))
+                .token(TokenType.MINUS, lit("-"))
+                .token(TokenType.MULTIPLY, lit("*"))
+                .token(TokenType.LT, lit("<"))
+                .token(TokenType.GT, lit(">"))
+                .token(TokenType.EQ, alt(lit("="), lit("==")))
+                .token(TokenType.AND, lit("&&"))
+                .token(TokenType.OR, lit("||"))
+                .token(TokenType.LPAREN, lit("("))
+                .token(TokenType.RPAREN, lit(")"))
+                .token(TokenType.LBRACE, lit("{"))
+                .token(TokenType.RBRACE, lit("}"))
+                .token(TokenType.SEMICOLON, lit(";"))
+                .token(TokenType.COMMA, lit(","))
+                .token(TokenType.INTEGER_LITERAL, plus(DIGIT))
+                .token(TokenType.FLOAT_LITERAL, seq(plus(DIGIT), lit("."), star(DIGIT)))
+                .token(TokenType.CHAR_LITERAL, seq(lit("'"), opt(alt(seq(anyBut('\''), opt(lit("'"))), lit("'")))))
+                .token(TokenType.IDENTIFIER, seq(LETTER, star(LETTER_OR_DIGIT)))
+                .token(TokenType.UNKNOWN, ANY);
+    }
+
+    static final class Nfa {
+        final List<List<Integer>> epsilon = new ArrayList<>();
+        final List<BitSet> edgeSet = new ArrayList<>();
+        final List<Integer> edgeTarget = new ArrayList<>();
+        final List<Integer> accept = new ArrayList<>();
+
+        int state() {
+            epsilon.add(new ArrayList<>());
+            edgeSet.add(null);
+            edgeTarget.add(-1);
+            accept.add(Integer.MAX_VALUE);
+            return epsilon.size() - 1;
+        }
+
+        void epsilon(int from, int to) {
+            epsilon.get(from).add(to);
+        }
+
+        void edge(int from, BitSet set, int to) {
+            edgeSet.set(from, set);
+            edgeTarget.set(from, to);
+        }
+
+        BitSet closure(BitSet states) {
+            BitSet result = (BitSet) states.clone();
+            ArrayDeque<Integer> work = new ArrayDeque<>();
+            states.stream().forEach(work::push);
+            while (!work.isEmpty()) {
+                for (int to : epsilon.get(work.pop())) {
+                    if (!result.get(to)) {
+                        result.set(to);
+                        work.push(to);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    public Dfa generate() {
+        Nfa nfa = new Nfa();
+        int start = nfa.state();
+        for (int rule = 0; rule < patterns.size(); rule++) {
+            int[] fragment = patterns.get(rule).build(nfa);
+            nfa.epsilon(start, fragment[0]);
+            nfa.accept.set(fragment[1], rule);
+        }
+
+        // Symbols that take part in exactly the same edges share one class
+        List<BitSet> sets = new ArrayList<>();
+        for (BitSet set : nfa.edgeSet) {
+            if (set != null && !sets.contains(set)) sets.add(set);
+        }
+        int[] classOf = new int[Dfa.SYMBOLS];
+        List<Integer> representative = new ArrayList<>();
+        Map<BitSet, Integer> signatures = new HashMap<>();
+        for (int symbol = 0; symbol < Dfa.SYMBOLS; symbol++) {
+            BitSet signature = new BitSet();
+            for (int i = 0; i < sets.size(); i++) {
+                if (sets.get(i).get(symbol)) signature.set(i);
+            }
+            Integer cls = signatures.get(signature);
+            if (cls == null) {
+                cls = representative.size();
+                signatures.put(signature, cls);
+                representative.add(symbol);
+            }
+            classOf[symbol] = cls;
+        }
+        int classes = representative.size();
+
+        // Subset construction; DFA state 0 is the dead state
+        List<BitSet> dfaStates = new ArrayList<>();
+        Map<BitSet, Integer> index = new HashMap<>();
+        List<int[]> transitions = new ArrayList<>();
+        dfaStates.add(new BitSet());
+        index.put(new BitSet(), 0);
+        transitions.add(new int[classes]);
+        BitSet initial = new BitSet();
+        initial.set(start);
+        initial = nfa.closure(initial);
+        dfaStates.add(initial);
+        index.put(initial, 1);
+        transitions.add(new int[classes]);
+        for (int d = 1; d < dfaStates.size(); d++) {
+            BitSet current = dfaStates.get(d);
+            for (int cls = 0; cls < classes; cls++) {
+                int symbol = representative.get(cls);
+                BitSet moved = new BitSet();
+                for (int s = current.nextSetBit(0); s >= 0; s = current.nextSetBit(s + 1)) {
+                    BitSet set = nfa.edgeSet.get(s);
+                    if (set != null && set.get(symbol)) moved.set(nfa.edgeTarget.get(s));
+                }
+                BitSet target = nfa.closure(moved);
+                Integer id = index.get(target);
+                if (id == null) {
+                    id = dfaStates.size();
+                    dfaStates.add(target);
+                    index.put(target, id);
+                    transitions.add(new int[classes]);
+                }
+                transitions.get(d)[cls] = id;
+            }
+        }
+        int[] accept = new int[dfaStates.size()];
+        for (int d = 0; d < dfaStates.size(); d++) {
+            int best = Integer.MAX_VALUE;
+            BitSet set = dfaStates.get(d);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                best = Math.min(best, nfa.accept.get(s));
+            }
+            accept[d] = best == Integer.MAX_VALUE ? Dfa.NO_ACCEPT : results.get(best);
+        }
+
+        return minimize(transitions, accept, classOf, classes);
+    }
+
+    // Moore partition refinement, starting from the blocks of equal accept results
+    private static Dfa minimize(List<int[]> transitions, int[] accept, int[] classOf, int classes) {
+        int n = accept.length;
+        int[] block = new int[n];
+        int blocks = renumber(n, s -> List.of(accept[s]), block);
+        while (true) {
+            int[] previous = block.clone();
+            int[] refined = new int[n];
+            int count = renumber(n, s -> {
+                List<Integer> key = new ArrayList<>(classes + 1);
+                key.add(previous[s]);
+                for (int target : transitions.get(s)) key.add(previous[target]);
+                return key;
+            }, refined);
+            block = refined;
+            if (count == blocks) break;
+            blocks = count;
+        }
+
+        // Keep the dead state's block at 0 so a zero entry still means "stop"
+        int[] order = new int[blocks];
+        Arrays.fill(order, -1);
+        order[block[0]] = 0;
+        int next = 1;
+        for (int s = 0; s < n; s++) {
+            if (order[block[s]] < 0) order[block[s]] = next++;
+        }
+        int[] table = new int[blocks * classes];
+        int[] blockAccept = new int[blocks];
+        for (int s = 0; s < n; s++) {
+            int b = order[block[s]];
+            blockAccept[b] = accept[s];
+            for (int cls = 0; cls < classes; cls++) {
+                table[b * classes + cls] = order[block[transitions.get(s)[cls]]] * classes;
+            }
+        }
+        int[] acceptByOffset = new int[blocks * classes];
+        Arrays.fill(acceptByOffset, Dfa.NO_ACCEPT);
+        for (int b = 0; b < blocks; b++) acceptByOffset[b * classes] = blockAccept[b];
+        return new Dfa(classOf, classes, table, acceptByOffset, order[block[1]] * classes);
+    }
+
+    private interface Key {
+        List<Integer> of(int state);
+    }
+
+    private static int renumber(int n, Key key, int[] out) {
+        Map<List<Integer>, Integer> ids = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            out[s] = ids.computeIfAbsent(key.of(s), k -> ids.size());
+        }
+        return ids.size();
+    }
+}
@@ -1,8 +1,10 @@
 package scanner;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         String inputCode = ""
                 + "int count = 0;\n"
                 + "float price = 10.5;\n"
@@ -20,19 +22,20 @@ public class Main {
                 + "   count = count + 1;\n"
                 + "}";
 
-        Scanner scanner = new Scanner(inputCode);
-        Token token;
-
         System.out.println(String.format("%-20s %-15s %s", "TYPE", "VALUE", "LINE"));
         System.out.println("---------------------------------------------");
 
-        do {
-            token = scanner.getNextToken();
-            if (token.type != TokenType.EOF && token.type != TokenType.UNKNOWN) {
-                System.out.println(String.format("%-20s %-15s", token.type, token.value));
-            } else if (token.type == TokenType.EOF) {
-                System.out.println(token);
-            }
-        } while (token.type != TokenType.EOF);
+        // Pass a file name to lex it through the streaming path instead
+        try (Scanner scanner = args.length > 0 ? Scanner.fromPath(Paths.get(args[0])) : new Scanner(inputCode)) {
+            Token token;
+            do {
+                token = scanner.getNextToken();
+                if (token.type != TokenType.EOF && token.type != TokenType.UNKNOWN) {
+                    System.out.println(String.format("%-20s %-15s", token.type, token.value));
+                } else if (token.type == TokenType.EOF) {
+                    System.out.println(token);
+                }
+            } while (token.type != TokenType.EOF);
+        }
     }
 }
@@ -0,0 +1,118 @@
+package scanner;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Lexes large inputs in chunks on a ForkJoinPool and stitches the per-chunk
+ * token buffers into one, with absolute offsets, lines and symbol ids.
+ *
+ * Chunks are cut right after a newline that is not preceded by a quote. Such a
+ * newline is never inside a token: it either ends a // comment or is plain
+ * whitespace, and only a char literal opened by the character just before it
+ * could contain it.
+ */
+public final class ParallelLexer {
+    public static final int DEFAULT_CHUNK = 1 << 20;
+
+    private ParallelLexer() {
+    }
+
+    public static TokenBuffer lex(String source) {
+        return lex(source, ForkJoinPool.commonPool(), DEFAULT_CHUNK);
+    }
+
+    public static TokenBuffer lex(String source, ForkJoinPool pool, int chunkSize) {
+        int[] bounds = split(source, chunkSize);
+        int chunks = bounds.length - 1;
+
+        List<Callable<TokenBuffer>> tasks = new ArrayList<>(chunks);
+        for (int k = 0; k < chunks; k++) {
+            int from = bounds[k];
+            int to = bounds[k + 1];
+            tasks.add(() -> lexChunk(source, from, to));
+        }
+        TokenBuffer[] parts = new TokenBuffer[chunks];
+        List<Future<TokenBuffer>> futures = pool.invokeAll(tasks);
+        for (int k = 0; k < chunks; k++) {
+            parts[k] = join(futures.get(k));
+        }
+
+        // Sequential over distinct symbols only: map each chunk's ids into one shared table
+        SymbolTable symbols = new SymbolTable();
+        int[][] remaps = new int[chunks][];
+        int[] at = new int[chunks + 1];
+        int[] lineDelta = new int[chunks + 1];
+        for (int k = 0; k < chunks; k++) {
+            SymbolTable local = parts[k].symbols();
+            remaps[k] = new int[local.size()];
+            for (int id = 0; id < local.size(); id++) {
+                remaps[k][id] = symbols.intern(local.name(id), local.type(id));
+            }
+            int last = parts[k].size() - 1;
+            at[k + 1] = at[k] + last;
+            lineDelta[k + 1] = lineDelta[k] + parts[k].line(last) - 1;
+        }
+
+        TokenBuffer tokens = TokenBuffer.ofSize(source, symbols, at[chunks]);
+        List<Callable<Void>> copies = new ArrayList<>(chunks);
+        for (int k = 0; k < chunks; k++) {
+            int chunk = k;
+            copies.add(() -> {
+                TokenBuffer part = parts[chunk];
+                tokens.copy(part, part.size() - 1, at[chunk], bounds[chunk], lineDelta[chunk], remaps[chunk]);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(copies)) {
+            join(future);
+        }
+        tokens.add(TokenType.EOF.ordinal(), source.length(), 0, lineDelta[chunks] + 1, -1);
+        return tokens;
+    }
+
+    private static TokenBuffer lexChunk(String source, int from, int to) {
+        char[] chars = new char[to - from];
+        source.getChars(from, to, chars, 0);
+        DfaScanner scanner = new DfaScanner(chars, 0, chars.length, new SymbolTable());
+        TokenBuffer tokens = new TokenBuffer(CharBuffer.wrap(chars), scanner.symbols(), chars.length / 3);
+        tokens.fill(scanner);
+        return tokens;
+    }
+
+    // Chunk boundaries, starting with 0 and ending with source.length()
+    static int[] split(String source, int chunkSize) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int target = chunkSize;
+        while (target < source.length()) {
+            int cut = source.indexOf('\n', target);
+            while (cut > 0 && source.charAt(cut - 1) == '\'') {
+                cut = source.indexOf('\n', cut + 1);
+            }
+            if (cut < 0) break;
+            bounds.add(cut + 1);
+            target = cut + 1 + chunkSize;
+        }
+        bounds.add(source.length());
+        int[] result = new int[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package scanner;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelLexerBenchmark {
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        String source = ScannerBenchmark.generateSource(megabytes << 20);
+        System.out.printf("Input: %d chars, %d cores, best of %d rounds%n", source.length(), cores, rounds);
+
+        double baseline = best(rounds, () -> TokenBuffer.lex(source).size());
+        System.out.printf("%-12s %8.1f ms%n", "sequential", baseline / 1e6);
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double time = best(rounds, () -> ParallelLexer.lex(source, pool, ParallelLexer.DEFAULT_CHUNK).size());
+            System.out.printf("%2d threads   %8.1f ms   speedup %.2fx%n", threads, time / 1e6, baseline / time);
+            pool.shutdown();
+            if (threads == cores) break;
+        }
+    }
+
+    private interface Run {
+        int tokens();
+    }
+
+    private static double best(int rounds, Run run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            run.tokens();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
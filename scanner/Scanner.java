@@ -1,24 +1,141 @@
 package scanner;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 
+public class Scanner implements TokenSource, Closeable {
+    static final int BUFFER_SIZE = 8192;
 
-public class Scanner {
-    private final StringReader reader;
+    // Tokens whose value is implied by their type are shared instead of allocated
+    private static final Token[] FIXED = new Token[TokenType.values().length];
+    private static final Token ASSIGN = new Token(TokenType.EQ, "=");
+    private static final Token EQUALS = new Token(TokenType.EQ, "==");
+
+    static {
+        fixed(TokenType.INT, "int");
+        fixed(TokenType.FLOAT, "float");
+        fixed(TokenType.CHAR, "char");
+        fixed(TokenType.IF, "if");
+        fixed(TokenType.ELSE, "else");
+        fixed(TokenType.WHILE, "while");
+        fixed(TokenType.PLUS, "+");
+        fixed(TokenType.MINUS, "-");
+        fixed(TokenType.MULTIPLY, "*");
+        fixed(TokenType.LT, "<");
+        fixed(TokenType.GT, ">");
+        fixed(TokenType.AND, "&&");
+        fixed(TokenType.OR, "||");
+        fixed(TokenType.LPAREN, "(");
+        fixed(TokenType.RPAREN, ")");
+        fixed(TokenType.LBRACE, "{");
+        fixed(TokenType.RBRACE, "}");
+        fixed(TokenType.SEMICOLON, ";");
+        fixed(TokenType.COMMA, ",");
+        fixed(TokenType.EOF, "<EOF>");
+    }
+
+    private static void fixed(TokenType type, String value) {
+        FIXED[type.ordinal()] = new Token(type, value);
+    }
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferPos;
+    private int bufferLen;
+    private boolean exhausted;
     private int currentChar;
+    private int offset = -1;
     private int line = 1;
 
+    // Text of the current identifier, number or char literal; reused across tokens
+    private char[] text = new char[64];
+    private int textLen;
+    private int textHash;
+    private int tokenStart;
+    private int tokenLine;
+    private int tokenSymbol = -1;
+    private final SymbolTable symbols;
+
     public Scanner(String input) {
-        this.reader = new StringReader(input);
+        this(new StringReader(input));
+    }
+
+    public Scanner(String input, SymbolTable symbols) {
+        this(new StringReader(input), symbols);
+    }
+
+    // Lexes straight out of the reader through one reusable buffer, so memory
+    // stays at BUFFER_SIZE chars no matter how large the input is.
+    public Scanner(Reader reader) {
+        this(reader, new SymbolTable());
+    }
+
+    // Scanners that share a table hand out the same ids for the same spellings
+    public Scanner(Reader reader, SymbolTable symbols) {
+        this(reader, symbols, BUFFER_SIZE);
+    }
+
+    Scanner(Reader reader, SymbolTable symbols, int bufferSize) {
+        this(reader, symbols, bufferSize, 0, 1);
+    }
+
+    // Resumes lexing mid-document: the reader's first char sits at startOffset on startLine
+    Scanner(Reader reader, SymbolTable symbols, int bufferSize, int startOffset, int startLine) {
+        this.reader = reader;
+        this.symbols = symbols;
+        this.buffer = new char[bufferSize];
+        this.offset = startOffset - 1;
+        this.line = startLine;
         advance();
     }
 
+    public static Scanner fromPath(Path path) throws IOException {
+        return fromChannel(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public static Scanner fromChannel(ReadableByteChannel channel) {
+        return new Scanner(Channels.newReader(channel, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
     private void advance() {
+        if (currentChar != -1) offset++;
+        if (bufferPos == bufferLen && !fill()) {
+            currentChar = -1;
+            return;
+        }
+        currentChar = buffer[bufferPos++];
+    }
+
+    private boolean fill() {
+        if (exhausted) return false;
         try {
-            currentChar = reader.read();
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n <= 0) {
+                exhausted = true;
+                return false;
+            }
+            bufferPos = 0;
+            bufferLen = n;
+            return true;
         } catch (IOException e) {
-            currentChar = -1;
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -31,9 +148,72 @@ public class Scanner {
         }
     }
 
+    private void append(int c) {
+        if (textLen == text.length) {
+            text = Arrays.copyOf(text, textLen * 2);
+        }
+        text[textLen++] = (char) c;
+        textHash = 31 * textHash + c;
+    }
+
+    @Override
     public Token getNextToken() {
+        TokenType type = scan();
+        switch (type) {
+            case IDENTIFIER:
+                return new Token(type, symbols.name(tokenSymbol));
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+            case CHAR_LITERAL:
+                return new Token(type, new String(text, 0, textLen));
+            case UNKNOWN:
+                return new Token(type, String.valueOf(text[0]));
+            default:
+                return fixedToken(type, tokenLength());
+        }
+    }
+
+    // Shared token for a type whose value follows from its type and length
+    static Token fixedToken(TokenType type, int length) {
+        if (type == TokenType.EQ) return length == 2 ? EQUALS : ASSIGN;
+        return FIXED[type.ordinal()];
+    }
+
+    // Offset of the first character of the last scanned token
+    @Override
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    // Number of source characters the last scanned token spans, quotes included
+    @Override
+    public int tokenLength() {
+        return offset - tokenStart;
+    }
+
+    @Override
+    public int tokenLine() {
+        return tokenLine;
+    }
+
+    // Symbol id of the last identifier, -1 for any other token
+    @Override
+    public int tokenSymbol() {
+        return tokenSymbol;
+    }
+
+    /**
+     * Advances to the next token without allocating. The token's position is
+     * available through tokenStart/tokenLength/tokenLine until the next call.
+     */
+    @Override
+    public TokenType scan() {
         while (currentChar != -1) {
             skipWhitespace();
+            if (currentChar == -1) break;
+            tokenStart = offset;
+            tokenLine = line;
+            tokenSymbol = -1;
             if (currentChar == '/') {
                 advance();
                 if (currentChar == '/') {
@@ -57,110 +237,110 @@ public class Scanner {
             }
 
             switch (currentChar) {
-                case '+': advance(); return new Token(TokenType.PLUS, "+");
-                case '*': advance(); return new Token(TokenType.MULTIPLY, "*");
-                case '-': advance(); return new Token(TokenType.MINUS, "-");
-                case '(': advance(); return new Token(TokenType.LPAREN, "(");
-                case ')': advance(); return new Token(TokenType.RPAREN, ")");
-                case '{': advance(); return new Token(TokenType.LBRACE, "{");
-                case '}': advance(); return new Token(TokenType.RBRACE, "}");
-                case ';': advance(); return new Token(TokenType.SEMICOLON, ";");
-                case ',': advance(); return new Token(TokenType.COMMA, ",");
-
-                case '<': advance(); return new Token(TokenType.LT, "<");
-                case '>': advance(); return new Token(TokenType.GT, ">");
+                case '+': advance(); return TokenType.PLUS;
+                case '*': advance(); return TokenType.MULTIPLY;
+                case '-': advance(); return TokenType.MINUS;
+                case '(': advance(); return TokenType.LPAREN;
+                case ')': advance(); return TokenType.RPAREN;
+                case '{': advance(); return TokenType.LBRACE;
+                case '}': advance(); return TokenType.RBRACE;
+                case ';': advance(); return TokenType.SEMICOLON;
+                case ',': advance(); return TokenType.COMMA;
+
+                case '<': advance(); return TokenType.LT;
+                case '>': advance(); return TokenType.GT;
 
                 case '=':
                     advance();
                     if (currentChar == '=') { // Check for == (Equality)
                         advance();
-                        return new Token(TokenType.EQ, "==");
                     }
-                    return new Token(TokenType.EQ, "=");
+                    return TokenType.EQ;
 
                 case '&':
                     advance();
                     if (currentChar == '&') {
                         advance();
-                        return new Token(TokenType.AND, "&&");
+                        return TokenType.AND;
                     }
-                    return new Token(TokenType.UNKNOWN, "&");
+                    textLen = 0;
+                    append('&');
+                    return TokenType.UNKNOWN;
 
                 case '|':
                     advance();
                     if (currentChar == '|') {
                         advance();
-                        return new Token(TokenType.OR, "||");
+                        return TokenType.OR;
                     }
-                    return new Token(TokenType.UNKNOWN, "|");
+                    textLen = 0;
+                    append('|');
+                    return TokenType.UNKNOWN;
 
                 default:
-                    char unknown = (char) currentChar;
+                    textLen = 0;
+                    append(currentChar);
                     advance();
-                    return new Token(TokenType.UNKNOWN, String.valueOf(unknown));
+                    return TokenType.UNKNOWN;
             }
         }
 
-        return new Token(TokenType.EOF, "<EOF>");
+        tokenStart = offset;
+        tokenLine = line;
+        tokenSymbol = -1;
+        return TokenType.EOF;
     }
 
-    private Token readNumberToken() {
-        StringBuilder buffer = new StringBuilder();
+    private TokenType readNumberToken() {
+        textLen = 0;
+        textHash = 0;
         boolean isFloat = false;
 
         while (Character.isDigit(currentChar)) {
-            buffer.append((char) currentChar);
+            append(currentChar);
             advance();
         }
 
         if (currentChar == '.') {
             isFloat = true;
-            buffer.append((char) currentChar);
+            append(currentChar);
             advance();
             while (Character.isDigit(currentChar)) {
-                buffer.append((char) currentChar);
+                append(currentChar);
                 advance();
             }
         }
 
-        String value = buffer.toString();
-        if (isFloat) {
-            return new Token(TokenType.FLOAT_LITERAL, value);
-        } else {
-            return new Token(TokenType.INTEGER_LITERAL, value);
-        }
+        // Not interned: distinct literals are unbounded on generated input, and their text is in the source
+        tokenSymbol = -1;
+        return isFloat ? TokenType.FLOAT_LITERAL : TokenType.INTEGER_LITERAL;
     }
 
-    private Token readIdentifierToken() {
-        StringBuilder buffer = new StringBuilder();
+    private TokenType readIdentifierToken() {
+        textLen = 0;
+        textHash = 0;
         while (Character.isLetterOrDigit(currentChar)) {
-            buffer.append((char) currentChar);
+            append(currentChar);
             advance();
         }
 
-        String value = buffer.toString();
-
-        switch (value) {
-            case "int": return new Token(TokenType.INT, value);
-            case "float": return new Token(TokenType.FLOAT, value);
-            case "char": return new Token(TokenType.CHAR, value);
-            case "if": return new Token(TokenType.IF, value);
-            case "else": return new Token(TokenType.ELSE, value);
-            case "while": return new Token(TokenType.WHILE, value);
-            default: return new Token(TokenType.IDENTIFIER, value);
-        }
+        // Keywords are pre-interned, so the lookup also classifies the word
+        tokenSymbol = symbols.intern(text, 0, textLen, textHash, TokenType.IDENTIFIER);
+        TokenType type = symbols.type(tokenSymbol);
+        if (type != TokenType.IDENTIFIER) tokenSymbol = -1;
+        return type;
     }
 
-    private Token readCharToken() {
+    private TokenType readCharToken() {
         advance();
-        StringBuilder buffer = new StringBuilder();
+        textLen = 0;
         if (currentChar != '\'' && currentChar != -1) {
-            buffer.append((char) currentChar);
+            append(currentChar);
             advance();
         }
         if (currentChar == '\'') {
             advance();
         }
-        return new Token(TokenType.CHAR_LITERAL, buffer.toString());
+        return TokenType.CHAR_LITERAL;
     }
 }
@@ -0,0 +1,96 @@
+package scanner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ScannerBenchmark {
+    private static final String PROGRAM = ""
+            + "int count = 0;\n"
+            + "float price = 10.5;\n"
+            + "char grade = 'A';\n"
+            + "// keep the loop bounded\n"
+            + "if (count < 5 && price > 10.0) {\n"
+            + "   count = count + 1;\n"
+            + "   if (grade == 'A' || count == 1) {\n"
+            + "      price = price * 1.5;\n"
+            + "   } else {\n"
+            + "      price = price - 1.0;\n"
+            + "   }\n"
+            + "}\n"
+            + "while (count < 10) {\n"
+            + "   count = count + 1;\n"
+            + "}\n";
+
+    // Repeats the scanner.Main sample until the source is at least minChars long
+    public static String generateSource(int minChars) {
+        StringBuilder sb = new StringBuilder(minChars + PROGRAM.length());
+        while (sb.length() < minChars) {
+            sb.append(PROGRAM);
+        }
+        return sb.toString();
+    }
+
+    private static long drain(Scanner scanner) throws IOException {
+        try (scanner) {
+            return drain((TokenSource) scanner);
+        }
+    }
+
+    private static long drain(BaselineScanner scanner) {
+        long count = 0;
+        while (scanner.getNextToken().type != TokenType.EOF) count++;
+        return count;
+    }
+
+    private static long drain(TokenSource source) {
+        long count = 0;
+        while (source.getNextToken().type != TokenType.EOF) count++;
+        return count;
+    }
+
+    private static long lexInto(String source, TokenSource lexer) {
+        TokenBuffer tokens = new TokenBuffer(source, lexer.symbols(), source.length() / 3);
+        tokens.fill(lexer);
+        return tokens.size() - 1;
+    }
+
+    private interface Run {
+        long tokens() throws IOException;
+    }
+
+    private static void measure(String name, long chars, int rounds, Run run) throws IOException {
+        long tokens = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            tokens = run.tokens();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double seconds = best / 1e9;
+        System.out.printf("%-22s %10d tokens %8.1f ms %8.1f MB/s %8.1f Mtok/s%n",
+                name, tokens, best / 1e6, chars / seconds / 1e6, tokens / seconds / 1e6);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        String source = generateSource(megabytes << 20);
+        Path file = Files.createTempFile("scanner-bench", ".c");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        try {
+            System.out.printf("Input: %d chars, best of %d rounds%n", source.length(), rounds);
+            measure("Baseline (per-char)", source.length(), rounds, () -> drain(new BaselineScanner(source)));
+            measure("String (StringReader)", source.length(), rounds, () -> drain(new Scanner(new StringReader(source))));
+            measure("Path (streaming)", source.length(), rounds, () -> drain(Scanner.fromPath(file)));
+            measure("DfaScanner", source.length(), rounds, () -> drain(new DfaScanner(source)));
+            measure("TokenBuffer (Scanner)", source.length(), rounds, () -> lexInto(source, new Scanner(source)));
+            measure("TokenBuffer (DFA)", source.length(), rounds, () -> lexInto(source, new DfaScanner(source)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
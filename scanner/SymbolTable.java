@@ -0,0 +1,126 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier spellings into dense symbol ids. Lookups hash
+ * the characters in place, so a spelling seen before costs no allocation; the
+ * keywords are pre-interned and resolved by the same lookup.
+ */
+public final class SymbolTable {
+    private int[] table;            // open addressing, symbol id + 1, 0 = empty
+    private int[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private TokenType[] types;
+    private String[] names;
+    private char[] pool = new char[1024];
+    private int poolLen;
+    private int count;
+
+    public SymbolTable() {
+        table = new int[256];
+        hashes = new int[64];
+        offsets = new int[64];
+        lengths = new int[64];
+        types = new TokenType[64];
+        names = new String[64];
+        intern("int", TokenType.INT);
+        intern("float", TokenType.FLOAT);
+        intern("char", TokenType.CHAR);
+        intern("if", TokenType.IF);
+        intern("else", TokenType.ELSE);
+        intern("while", TokenType.WHILE);
+    }
+
+    public static int hash(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = offset; i < offset + length; i++) {
+            h = 31 * h + chars[i];
+        }
+        return h;
+    }
+
+    public int intern(CharSequence text, TokenType type) {
+        char[] chars = text.toString().toCharArray();
+        return intern(chars, 0, chars.length, hash(chars, 0, chars.length), type);
+    }
+
+    /**
+     * Returns the id of the spelling, adding it with the given type if it is new.
+     * hash must equal hash(chars, offset, length); the scanner accumulates it while reading.
+     */
+    public int intern(char[] chars, int offset, int length, int hash, TokenType type) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && lengths[id] == length && sameChars(id, chars, offset)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = add(chars, offset, length, hash, type);
+        table[slot] = id + 1;
+        if (count * 2 > table.length) rehash();
+        return id;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Keyword ids map to their keyword type, everything else to the type it was first interned with
+    public TokenType type(int id) {
+        return types[id];
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    private boolean sameChars(int id, char[] chars, int offset) {
+        int start = offsets[id];
+        for (int i = 0; i < lengths[id]; i++) {
+            if (pool[start + i] != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private int add(char[] chars, int offset, int length, int hash, TokenType type) {
+        if (count == hashes.length) {
+            int capacity = count * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            types = Arrays.copyOf(types, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+        if (poolLen + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolLen + length));
+        }
+        System.arraycopy(chars, offset, pool, poolLen, length);
+        hashes[count] = hash;
+        offsets[count] = poolLen;
+        lengths[count] = length;
+        types[count] = type;
+        names[count] = new String(chars, offset, length);
+        poolLen += length;
+        return count++;
+    }
+
+    private void rehash() {
+        int[] bigger = new int[table.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (bigger[slot] != 0) slot = (slot + 1) & mask;
+            bigger[slot] = id + 1;
+        }
+        table = bigger;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,276 @@
+package scanner;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Token stream stored column-wise in primitive arrays: type ordinal, start
+ * offset, length, line and symbol id per token. Values are only materialized,
+ * as views over the source, when value(i) or token(i) is called.
+ */
+public final class TokenBuffer {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final CharSequence source;
+    private final SymbolTable symbols;
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] symbolIds;
+    private int size;
+
+    public TokenBuffer(CharSequence source) {
+        this(source, new SymbolTable(), 64);
+    }
+
+    public TokenBuffer(CharSequence source, SymbolTable symbols, int capacity) {
+        this.source = source;
+        this.symbols = symbols;
+        capacity = Math.max(capacity, 16);
+        types = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        symbolIds = new int[capacity];
+    }
+
+    public static TokenBuffer lex(String source) {
+        Scanner scanner = new Scanner(source);
+        TokenBuffer tokens = new TokenBuffer(source, scanner.symbols(), source.length() / 3);
+        tokens.fill(scanner);
+        return tokens;
+    }
+
+    // Wraps an existing token list; values are laid out in a synthetic source.
+    // Token carries no line, so every line is recorded as 0, unknown
+    public static TokenBuffer of(List<Token> list) {
+        StringBuilder text = new StringBuilder();
+        int[] offsets = new int[list.size() + 1];
+        for (int i = 0; i < list.size(); i++) {
+            Token token = list.get(i);
+            offsets[i] = text.length();
+            if (token.type == TokenType.CHAR_LITERAL) {
+                text.append('\'').append(token.value).append('\'');
+            } else if (token.type != TokenType.EOF) {
+                text.append(token.value);
+            }
+            offsets[i + 1] = text.length();
+            text.append(' ');
+        }
+        SymbolTable symbols = new SymbolTable();
+        TokenBuffer tokens = new TokenBuffer(text, symbols, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Token token = list.get(i);
+            int symbol = -1;
+            if (token.type == TokenType.IDENTIFIER) {
+                symbol = symbols.intern(token.value, token.type);
+            }
+            tokens.add(token.type.ordinal(), offsets[i], offsets[i + 1] - offsets[i], 0, symbol);
+        }
+        return tokens;
+    }
+
+    // Drains the scanner up to and including its EOF token
+    public void fill(TokenSource scanner) {
+        if (scanner.symbols() != symbols) {
+            throw new IllegalArgumentException("Scanner does not share this buffer's symbol table");
+        }
+        TokenType type;
+        do {
+            type = scanner.scan();
+            add(type.ordinal(), scanner.tokenStart(), scanner.tokenLength(), scanner.tokenLine(),
+                    scanner.tokenSymbol());
+        } while (type != TokenType.EOF);
+    }
+
+    public void add(int type, int start, int length, int line, int symbol) {
+        if (size == types.length) {
+            int capacity = size + (size >> 1);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+        }
+        types[size] = type;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        symbolIds[size] = symbol;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharSequence source() {
+        return source;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    public int type(int i) {
+        return types[i];
+    }
+
+    public TokenType tokenType(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    // 1-based; 0 when unknown
+    public int line(int i) {
+        return lines[i];
+    }
+
+    // " at line N" for error messages, or nothing when the line is unknown
+    public String where(int i) {
+        return i >= 0 && i < size && lines[i] > 0 ? " at line " + lines[i] : "";
+    }
+
+    // Interned id of an identifier, -1 for other tokens
+    public int symbol(int i) {
+        return symbolIds[i];
+    }
+
+    // Same text Scanner.getNextToken would report as the token's value
+    public CharSequence value(int i) {
+        if (symbolIds[i] >= 0) return symbols.name(symbolIds[i]);
+        int start = starts[i];
+        int length = lengths[i];
+        switch (TYPES[types[i]]) {
+            case EOF:
+                return "<EOF>";
+            case CHAR_LITERAL:
+                if (length >= 2 && source.charAt(start + 1) != '\'') {
+                    return new Slice(source, start + 1, start + 2);
+                }
+                return "";
+            default:
+                return new Slice(source, start, start + length);
+        }
+    }
+
+    public Token token(int i) {
+        TokenType type = tokenType(i);
+        switch (type) {
+            case IDENTIFIER:
+            case INTEGER_LITERAL:
+            case FLOAT_LITERAL:
+            case CHAR_LITERAL:
+            case UNKNOWN:
+                return new Token(type, value(i).toString());
+            default:
+                return Scanner.fixedToken(type, lengths[i]);
+        }
+    }
+
+    // Replays the buffer through the TokenSource interface, for consumers written against Scanner
+    public TokenSource cursor() {
+        return new Cursor();
+    }
+
+    private final class Cursor implements TokenSource {
+        private int current = -1;
+
+        // Stays on the final EOF token once it is reached, like a drained Scanner
+        @Override
+        public TokenType scan() {
+            if (current < size - 1) current++;
+            return tokenType(current);
+        }
+
+        @Override
+        public Token getNextToken() {
+            scan();
+            return token(current);
+        }
+
+        @Override
+        public int tokenStart() {
+            return starts[current];
+        }
+
+        @Override
+        public int tokenLength() {
+            return lengths[current];
+        }
+
+        @Override
+        public int tokenLine() {
+            return lines[current];
+        }
+
+        @Override
+        public int tokenSymbol() {
+            return symbolIds[current];
+        }
+
+        @Override
+        public SymbolTable symbols() {
+            return symbols;
+        }
+    }
+
+    // Presized buffer whose ranges are filled by copy(), possibly from several threads
+    static TokenBuffer ofSize(CharSequence source, SymbolTable symbols, int size) {
+        TokenBuffer tokens = new TokenBuffer(source, symbols, size + 1);
+        tokens.size = size;
+        return tokens;
+    }
+
+    // Copies count tokens of from into this buffer at index at, shifting positions and remapping symbols
+    void copy(TokenBuffer from, int count, int at, int offsetDelta, int lineDelta, int[] symbolRemap) {
+        System.arraycopy(from.types, 0, types, at, count);
+        System.arraycopy(from.lengths, 0, lengths, at, count);
+        for (int i = 0; i < count; i++) {
+            starts[at + i] = from.starts[i] + offsetDelta;
+            lines[at + i] = from.lines[i] + lineDelta;
+            int symbol = from.symbolIds[i];
+            symbolIds[at + i] = symbol < 0 ? symbol : symbolRemap[symbol];
+        }
+    }
+
+    private static final class Slice implements CharSequence {
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+
+        Slice(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Slice(source, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package scanner;
+
+/**
+ * A lexer that can be drained either token by token or, without allocating,
+ * through scan() and the position accessors of the last scanned token.
+ */
+public interface TokenSource {
+    Token getNextToken();
+
+    TokenType scan();
+
+    int tokenStart();
+
+    int tokenLength();
+
+    int tokenLine();
+
+    int tokenSymbol();
+
+    SymbolTable symbols();
+}